@@ -10,8 +10,9 @@ nano application.properties
 
 cd ../../..
 
-# Skip the test while building
-mvn clean install -DskipTests
+# Skip the test while building; the OpenAPI spec is generated by starting the application, so MongoDB and Redis must
+# be reachable with the configuration above
+mvn clean install -DskipTests -Popenapi
 
 mv src/main/resources/application.old.properties src/main/resources/application.properties
 
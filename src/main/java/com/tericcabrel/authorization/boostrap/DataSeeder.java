@@ -1,9 +1,13 @@
 package com.tericcabrel.authorization.boostrap;
 
 import com.tericcabrel.authorization.exceptions.ResourceNotFoundException;
-import com.tericcabrel.authorization.services.interfaces.PermissionLoader;
+import com.tericcabrel.authorization.services.interfaces.BootstrapLockService;
+import com.tericcabrel.authorization.services.interfaces.PermissionReloadService;
+import java.io.IOException;
 import java.util.Map;
 import lombok.SneakyThrows;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.stereotype.Component;
@@ -21,26 +25,48 @@ import com.tericcabrel.authorization.services.interfaces.UserService;
 
 @Component
 public class DataSeeder implements ApplicationListener<ContextRefreshedEvent> {
+    /**
+     * Increase it when the roles or the users seeded change, so one node seeds them again.
+     */
+    private static final String SEED_VERSION = "1";
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
     private final RoleService roleService;
 
     private final UserService userService;
 
-    private final PermissionLoader permissionLoader;
+    private final PermissionReloadService permissionReloadService;
 
-    public DataSeeder(RoleService roleService, UserService userService, PermissionLoader permissionLoader) {
+    private final BootstrapLockService bootstrapLockService;
+
+    public DataSeeder(
+        RoleService roleService,
+        UserService userService,
+        PermissionReloadService permissionReloadService,
+        BootstrapLockService bootstrapLockService
+    ) {
         this.roleService = roleService;
         this.userService = userService;
-        this.permissionLoader = permissionLoader;
+        this.permissionReloadService = permissionReloadService;
+        this.bootstrapLockService = bootstrapLockService;
     }
 
     @SneakyThrows
     @Override
     public void onApplicationEvent(ContextRefreshedEvent contextRefreshedEvent) {
-        loadRoles();
-
-        permissionLoader.load();
+        // The other nodes wait for the roles, which the permissions are granted to
+        bootstrapLockService.runOnce("seed", SEED_VERSION, lease -> {
+            loadRoles();
+            lease.check();
+            loadUsers();
+        });
 
-        loadUsers();
+        try {
+            permissionReloadService.reload("startup");
+        } catch (IOException e) {
+            logger.error("Loading permissions: failed to read permission file!", e);
+        }
     }
 
     private void loadRoles() {
@@ -0,0 +1,47 @@
+package com.tericcabrel.authorization.boostrap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * The indexes of the documents, declared on the entities with {@code @Indexed} and {@code @CompoundIndex}.
+ */
+@Component
+public class IndexRegistry {
+    private final MongoMappingContext mappingContext;
+
+    public IndexRegistry(MongoMappingContext mappingContext) {
+        this.mappingContext = mappingContext;
+    }
+
+    /**
+     * @return the indexes of each document class, in a stable order
+     */
+    public Map<Class<?>, List<IndexDefinition>> definitions() {
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        Map<Class<?>, List<IndexDefinition>> definitions = new LinkedHashMap<>();
+
+        mappingContext.getPersistentEntities().stream()
+            .filter(entity -> entity.isAnnotationPresent(Document.class))
+            .map(MongoPersistentEntity::getType)
+            .sorted(Comparator.comparing(Class::getName))
+            .forEach(entityClass -> {
+                List<IndexDefinition> entityDefinitions = new ArrayList<>();
+
+                resolver.resolveIndexFor(entityClass).forEach(entityDefinitions::add);
+
+                definitions.put(entityClass, entityDefinitions);
+            });
+
+        return definitions;
+    }
+}
@@ -0,0 +1,46 @@
+package com.tericcabrel.authorization.boostrap;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * What the index synchronisation changed, as "collection key-spec" entries.
+ */
+@Accessors(chain = true)
+@Setter
+@Getter
+public class IndexSyncReport {
+    private List<String> created = new ArrayList<>();
+
+    private List<String> dropped = new ArrayList<>();
+
+    /**
+     * Indexes found in the database but not declared, kept unless dropping them is enabled.
+     */
+    private List<String> unmanaged = new ArrayList<>();
+
+    /**
+     * Indexes declared with other options which can't be rebuilt without a gap, left as they are.
+     */
+    private List<String> conflicting = new ArrayList<>();
+
+    /**
+     * Builds slower than the threshold, with their duration.
+     */
+    private List<String> slow = new ArrayList<>();
+
+    private int unchanged;
+
+    private long durationMillis;
+
+    @Override
+    public String toString() {
+        return created.size() + " indexes created " + created + ", " + dropped.size() + " dropped " + dropped + ", "
+            + unchanged + " unchanged, " + unmanaged.size() + " unmanaged " + unmanaged + " in " + durationMillis + "ms"
+            + (conflicting.isEmpty() ? "" : ", conflicting " + conflicting)
+            + (slow.isEmpty() ? "" : ", slow builds " + slow);
+    }
+}
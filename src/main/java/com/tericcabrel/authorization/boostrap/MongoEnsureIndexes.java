@@ -1,36 +1,363 @@
 package com.tericcabrel.authorization.boostrap;
 
-import com.tericcabrel.authorization.models.entities.Permission;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.mongodb.client.model.IndexOptions;
+import com.tericcabrel.authorization.models.entities.MailOutbox;
+import com.tericcabrel.authorization.models.entities.UserAccount;
+import com.tericcabrel.authorization.models.enums.MailStatus;
+import com.tericcabrel.authorization.services.interfaces.BootstrapLockService;
+import com.tericcabrel.authorization.services.interfaces.BootstrapLockService.Lease;
+import com.tericcabrel.authorization.utils.Helpers;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.Document;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
-import org.springframework.data.domain.Sort;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
 import org.springframework.stereotype.Component;
 
-import com.tericcabrel.authorization.models.entities.Role;
-import com.tericcabrel.authorization.models.entities.User;
-
+/**
+ * Synchronises the indexes of the {@link IndexRegistry} with the database. The indexes of each collection are listed
+ * and compared by keys and options with the declared ones: the missing ones are created, and the ones not declared are
+ * reported, and dropped only when enabled.
+ * <p>
+ * An index declared with other options is rebuilt behind a temporary index on the same keys followed by the id, so the
+ * queries keep an index while it is dropped and built again. A unique index is only reported: the temporary index
+ * couldn't enforce the constraint meanwhile, and the duplicates inserted then would fail the new build. So is an index
+ * of a special type, which the temporary index couldn't stand in for.
+ * <p>
+ * The synchronisation runs on its own thread, so a long build doesn't delay the readiness of the application, and on
+ * a single node. Its version is derived from the definitions, so a deploy changing an index runs it again and the
+ * other deploys skip it. Builds slower than the threshold are reported.
+ * <p>
+ * The query methods of the repositories are checked against the declared indexes on every node, and the ones whose
+ * filter can't use any index are reported, since each call would scan the collection.
+ */
 @Component
 public class MongoEnsureIndexes implements ApplicationListener<ContextRefreshedEvent> {
+    /**
+     * Increase it when a migration is added.
+     */
+    private static final String MIGRATIONS_VERSION = "2";
+
+    private static final String ID_INDEX = "_id_";
+
+    private static final String TEMPORARY_INDEX_SUFFIX = "_rebuild";
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
     private final MongoTemplate mongoTemplate;
 
-    public MongoEnsureIndexes(MongoTemplate mongoTemplate) {
+    private final MongoMappingContext mappingContext;
+
+    private final IndexRegistry indexRegistry;
+
+    private final BootstrapLockService bootstrapLockService;
+
+    private final ApplicationContext applicationContext;
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean dropUnmanaged;
+
+    private final long slowBuildMillis;
+
+    public MongoEnsureIndexes(
+        MongoTemplate mongoTemplate,
+        MongoMappingContext mappingContext,
+        IndexRegistry indexRegistry,
+        BootstrapLockService bootstrapLockService,
+        ApplicationContext applicationContext,
+        MeterRegistry meterRegistry,
+        Environment environment
+    ) {
         this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+        this.indexRegistry = indexRegistry;
+        this.bootstrapLockService = bootstrapLockService;
+        this.applicationContext = applicationContext;
+        this.meterRegistry = meterRegistry;
+        this.dropUnmanaged = environment.getProperty("app.mongodb.indexes.drop-unmanaged", Boolean.class, false);
+        this.slowBuildMillis = environment.getProperty("app.mongodb.indexes.slow-build-ms", Long.class, 5_000L);
     }
 
     @Override
     public void onApplicationEvent(ContextRefreshedEvent contextRefreshedEvent) {
-        mongoTemplate.indexOps(User.class).ensureIndex(
-                new Index().on("email", Sort.Direction.ASC).background().unique()
-        );
+        Map<Class<?>, List<IndexDefinition>> definitions = indexRegistry.definitions();
 
-        mongoTemplate.indexOps(Role.class).ensureIndex(
-                new Index().on("name", Sort.Direction.ASC).unique()
-        );
+        List<String> unindexedQueries = unindexedQueries(definitions);
+        if (!unindexedQueries.isEmpty()) {
+            logger.warn("Repository queries without a supporting index: " + unindexedQueries);
+        }
+
+        Thread.ofPlatform().daemon().name("mongo-indexes").start(() -> {
+            try {
+                bootstrapLockService.runOnce("indexes", version(definitions), lease -> {
+                    migrateUserAccountTokens();
+                    migrateCompletedMails();
+
+                    logger.info("Indexes synchronised: " + synchronise(definitions, lease));
+                });
+            } catch (Exception e) {
+                logger.error("Failed to synchronise the indexes", e);
+            }
+        });
+    }
+
+    private IndexSyncReport synchronise(Map<Class<?>, List<IndexDefinition>> definitions, Lease lease) {
+        long startedAt = System.currentTimeMillis();
+        IndexSyncReport report = new IndexSyncReport();
+
+        definitions.forEach((entityClass, entityDefinitions) -> {
+            lease.check();
+
+            String collection = mongoTemplate.getCollectionName(entityClass);
+            List<Document> existing = mongoTemplate.getCollection(collection).listIndexes().into(new ArrayList<>());
+            existing.removeIf(index -> ID_INDEX.equals(index.getString("name")));
+
+            for (IndexDefinition definition : entityDefinitions) {
+                String keys = keysOf(definition.getIndexKeys());
+                String options = optionsOf(definition.getIndexOptions());
+                Document current = null;
+
+                for (Iterator<Document> iterator = existing.iterator(); iterator.hasNext(); ) {
+                    Document index = iterator.next();
+
+                    if (keys.equals(keysOf(index.get("key", Document.class)))) {
+                        current = index;
+                        iterator.remove();
+                        break;
+                    }
+                }
+
+                if (current != null && options.equals(optionsOf(current))) {
+                    report.setUnchanged(report.getUnchanged() + 1);
+                    continue;
+                }
+
+                if (current == null) {
+                    build(entityClass, collection, keys, definition, report);
+                    continue;
+                }
+
+                String change = collection + " " + keys + " " + optionsOf(current) + " -> " + options;
+
+                if (!rebuildable(current, definition)) {
+                    report.getConflicting().add(change);
+                    logger.warn("The index " + change + " must be rebuilt by hand, it is left as it is");
+                    continue;
+                }
+
+                // Left in place if the build fails, so the queries still have an index
+                String temporaryName = current.getString("name") + TEMPORARY_INDEX_SUFFIX;
+                mongoTemplate.getCollection(collection).createIndex(
+                    new Document(current.get("key", Document.class)).append("_id", 1), new IndexOptions().name(temporaryName)
+                );
+
+                mongoTemplate.indexOps(entityClass).dropIndex(current.getString("name"));
+                report.getDropped().add(collection + " " + keys + " " + optionsOf(current));
+
+                build(entityClass, collection, keys, definition, report);
+
+                mongoTemplate.getCollection(collection).dropIndex(temporaryName);
+            }
+
+            for (Document index : existing) {
+                String description = collection + " " + keysOf(index.get("key", Document.class)) + " " + index.getString("name");
+
+                if (dropUnmanaged) {
+                    mongoTemplate.indexOps(entityClass).dropIndex(index.getString("name"));
+                    report.getDropped().add(description);
+                } else {
+                    report.getUnmanaged().add(description);
+                }
+            }
+        });
+
+        report.setDurationMillis(System.currentTimeMillis() - startedAt);
+
+        return report;
+    }
+
+    private static boolean rebuildable(Document current, IndexDefinition definition) {
+        Document keys = current.get("key", Document.class);
+
+        return !Boolean.TRUE.equals(current.get("unique"))
+            && !Boolean.TRUE.equals(definition.getIndexOptions().get("unique"))
+            && !keys.containsKey("_id")
+            && keys.values().stream().allMatch(Number.class::isInstance);
+    }
+
+    private void build(Class<?> entityClass, String collection, String keys, IndexDefinition definition, IndexSyncReport report) {
+        long startedAt = System.nanoTime();
+
+        mongoTemplate.indexOps(entityClass).ensureIndex(definition);
+
+        long durationNanos = System.nanoTime() - startedAt;
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+
+        Timer.builder("auth.mongodb.index.build")
+            .description("Time spent building an index")
+            .tag("collection", collection)
+            .register(meterRegistry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+
+        report.getCreated().add(collection + " " + keys);
+
+        if (durationMillis > slowBuildMillis) {
+            report.getSlow().add(collection + " " + keys + " " + durationMillis + "ms");
+            logger.warn("The index " + keys + " of " + collection + " took " + durationMillis + "ms to build");
+        }
+    }
+
+    /**
+     * A filter can use an index whose first key is one of its fields, so a query method is reported when no index of
+     * its collection starts with one of the fields of a branch of its filter.
+     */
+    private List<String> unindexedQueries(Map<Class<?>, List<IndexDefinition>> definitions) {
+        List<String> unindexed = new ArrayList<>();
+        Repositories repositories = new Repositories(applicationContext);
+
+        for (Class<?> domainType : repositories) {
+            MongoPersistentEntity<?> entity = mappingContext.getPersistentEntity(domainType);
+            RepositoryInformation information = repositories.getRepositoryInformationFor(domainType).orElse(null);
+
+            if (entity == null || information == null || !definitions.containsKey(domainType)) {
+                continue;
+            }
+
+            Set<String> leadingFields = definitions.get(domainType).stream()
+                .map(definition -> definition.getIndexKeys().keySet().iterator().next())
+                .collect(Collectors.toSet());
+            leadingFields.add("_id");
+
+            for (Method method : information.getQueryMethods()) {
+                if (method.isAnnotationPresent(org.springframework.data.mongodb.repository.Query.class)) {
+                    continue;
+                }
+
+                PartTree tree;
+                try {
+                    tree = new PartTree(method.getName(), domainType);
+                } catch (RuntimeException e) {
+                    continue;
+                }
+
+                for (PartTree.OrPart branch : tree) {
+                    Set<String> fields = branch.stream()
+                        .map(part -> mappingContext.getPersistentPropertyPath(part.getProperty())
+                            .toDotPath(MongoPersistentProperty::getFieldName))
+                        .collect(Collectors.toSet());
+
+                    if (!fields.isEmpty() && fields.stream().noneMatch(leadingFields::contains)) {
+                        unindexed.add(information.getRepositoryInterface().getSimpleName() + "." + method.getName() + " " + fields);
+                    }
+                }
+            }
+        }
+
+        return unindexed;
+    }
+
+    private static String version(Map<Class<?>, List<IndexDefinition>> definitions) {
+        StringBuilder signature = new StringBuilder(MIGRATIONS_VERSION);
+
+        definitions.forEach((entityClass, entityDefinitions) -> entityDefinitions.forEach(definition -> signature
+            .append('|').append(entityClass.getName())
+            .append(keysOf(definition.getIndexKeys()))
+            .append(optionsOf(definition.getIndexOptions()))
+        ));
+
+        return Helpers.sha256(signature.toString());
+    }
+
+    /**
+     * The keys in their order, with the numbers normalised since the shell stores the directions as doubles.
+     */
+    private static String keysOf(Document keys) {
+        if (keys == null) {
+            return "{}";
+        }
+
+        return keys.entrySet().stream()
+            .map(entry -> entry.getKey() + ":" + (entry.getValue() instanceof Number number ? number.intValue() : entry.getValue()))
+            .collect(Collectors.joining(",", "{", "}"));
+    }
+
+    /**
+     * The options which make two indexes on the same keys different; the name and the deprecated background flag don't.
+     */
+    private static String optionsOf(Document options) {
+        Object expireAfterSeconds = options.get("expireAfterSeconds");
+        Object partialFilter = options.get("partialFilterExpression");
+
+        return "unique=" + Boolean.TRUE.equals(options.get("unique"))
+            + ",sparse=" + Boolean.TRUE.equals(options.get("sparse"))
+            + ",ttl=" + (expireAfterSeconds instanceof Number number ? number.longValue() : "none")
+            + ",partial=" + (partialFilter instanceof Document document ? document.toJson() : "none");
+    }
+
+    /**
+     * The accounts created before the tokens were hashed still hold the plain token and only the numeric expiry.
+     * Replace the token by its hash and add the date expiry, so they can be found by the new lookup and removed by the
+     * TTL index.
+     */
+    private void migrateUserAccountTokens() {
+        String collection = mongoTemplate.getCollectionName(UserAccount.class);
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        int count = 0;
+
+        for (Document document : mongoTemplate.find(query(where("token").exists(true)), Document.class, collection)) {
+            Update update = new Update()
+                .set("tokenHash", Helpers.sha256(document.getString("token")))
+                .unset("token");
+
+            if (document.get("expireAt") instanceof Number expireAt) {
+                update.set("expiresAt", new Date(expireAt.longValue()));
+            }
+
+            bulkOperations.updateOne(query(where("_id").is(document.get("_id"))), update);
+            count++;
+        }
+
+        if (count > 0) {
+            bulkOperations.execute();
+        }
+    }
 
-        mongoTemplate.indexOps(Permission.class).ensureIndex(
-            new Index().on("name", Sort.Direction.ASC).unique()
+    /**
+     * The emails completed before the links were cleared still hold the raw token and have no completion date, so they
+     * would never expire.
+     */
+    private void migrateCompletedMails() {
+        mongoTemplate.updateMulti(
+            query(where("status").in(MailStatus.SENT, MailStatus.FAILED).and("completedAt").exists(false)),
+            new Update().unset("url").set("completedAt", new Date()),
+            MailOutbox.class
         );
     }
 }
@@ -0,0 +1,85 @@
+package com.tericcabrel.authorization.configs;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfiguration {
+    private final Environment environment;
+
+    public AsyncConfiguration(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Bean(name = "bulkTaskExecutor")
+    public ThreadPoolTaskExecutor bulkTaskExecutor() {
+        int poolSize = environment.getProperty("app.bulk.pool-size", Integer.class, 2);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(environment.getProperty("app.bulk.queue-capacity", Integer.class, 20));
+        executor.setThreadNamePrefix("bulk-users-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+
+        return executor;
+    }
+
+    /**
+     * Runs the writes of the login that can overlap with the rest of it. When the queue is full, the write runs on the
+     * calling thread instead of failing the login. Replaced by {@link VirtualThreadsConfiguration} on virtual threads.
+     */
+    @Bean(name = "loginTaskExecutor")
+    @ConditionalOnProperty(name = "app.threads.virtual.enabled", havingValue = "false", matchIfMissing = true)
+    public ThreadPoolTaskExecutor loginTaskExecutor() {
+        int poolSize = environment.getProperty("app.login.pool-size", Integer.class, 4);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(environment.getProperty("app.login.queue-capacity", Integer.class, 256));
+        executor.setThreadNamePrefix("login-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+
+        return executor;
+    }
+
+    @Bean(name = "mailTaskExecutor")
+    @ConditionalOnProperty(name = "app.threads.virtual.enabled", havingValue = "false", matchIfMissing = true)
+    public ThreadPoolTaskExecutor mailTaskExecutor() {
+        int poolSize = environment.getProperty("app.mail.outbox.pool-size", Integer.class, 4);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(environment.getProperty("app.mail.outbox.queue-capacity", Integer.class, 40));
+        executor.setThreadNamePrefix("mail-dispatch-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+
+        return executor;
+    }
+
+    /**
+     * Decodes and resizes the uploaded avatars. The queue is bounded, an upload is refused when it is full.
+     */
+    @Bean(name = "avatarTaskExecutor")
+    public ThreadPoolTaskExecutor avatarTaskExecutor() {
+        int poolSize = environment.getProperty("app.avatar.pool-size", Integer.class, 2);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(environment.getProperty("app.avatar.queue-capacity", Integer.class, 20));
+        executor.setThreadNamePrefix("avatar-processing-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+
+        return executor;
+    }
+}
@@ -0,0 +1,186 @@
+package com.tericcabrel.authorization.configs;
+
+import com.tericcabrel.authorization.services.FileStorageServiceImpl;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Serves the stored avatars outside of Spring MVC and of the security filters: the files are public, so no token is
+ * parsed and no user is loaded. The bytes are sent by the container with sendfile when it supports it, otherwise with
+ * {@link FileChannel#transferTo}. A content-addressed file never changes, so it is cached for a year as immutable
+ * and its hash is the ETag.
+ */
+public class AvatarServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    private static final Pattern SINGLE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String IMMUTABLE_CACHE = "public, max-age=31536000, immutable";
+
+    private static final String MUTABLE_CACHE = "public, max-age=3600";
+
+    private final transient Path root;
+
+    public AvatarServlet(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        serve(req, resp, true);
+    }
+
+    @Override
+    protected void doHead(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        serve(req, resp, false);
+    }
+
+    private void serve(HttpServletRequest req, HttpServletResponse resp, boolean withBody) throws IOException {
+        String relativePath = req.getPathInfo() == null ? "" : req.getPathInfo().substring(1);
+        Path file = resolve(relativePath);
+
+        if (file == null) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        String hash = FileStorageServiceImpl.contentHashOf(relativePath);
+        String etag = hash != null
+            ? "\"" + hash + "\""
+            : "W/\"" + Long.toHexString(length) + "-" + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"";
+
+        resp.setHeader(HttpHeaders.ETAG, etag);
+        resp.setHeader(HttpHeaders.CACHE_CONTROL, hash != null ? IMMUTABLE_CACHE : MUTABLE_CACHE);
+        resp.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        resp.setHeader("X-Content-Type-Options", "nosniff");
+
+        if (matches(req.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        String contentType = getServletContext().getMimeType(file.getFileName().toString());
+        resp.setContentType(contentType != null ? contentType : "application/octet-stream");
+
+        long start = 0;
+        long end = length - 1;
+        String range = req.getHeader(HttpHeaders.RANGE);
+        String ifRange = req.getHeader(HttpHeaders.IF_RANGE);
+
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            Matcher matcher = SINGLE_RANGE.matcher(range.trim());
+
+            // Several ranges are answered with the whole file, which the specification allows
+            if (matcher.matches()) {
+                long[] bounds = bounds(matcher.group(1), matcher.group(2), length);
+
+                if (bounds == null) {
+                    resp.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    resp.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+
+                start = bounds[0];
+                end = bounds[1];
+                resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                resp.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        resp.setContentLengthLong(count);
+
+        if (!withBody || count == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORT))) {
+            req.setAttribute("org.apache.tomcat.sendfile.filename", file.toString());
+            req.setAttribute("org.apache.tomcat.sendfile.start", start);
+            req.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(resp.getOutputStream());
+            long position = start;
+            long remaining = count;
+
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * @return the file if it is a regular file inside the root and not in a hidden directory such as the staging one
+     */
+    private Path resolve(String relativePath) {
+        if (relativePath.isEmpty() || relativePath.startsWith(".") || relativePath.contains("/.")) {
+            return null;
+        }
+
+        Path file = root.resolve(relativePath).normalize();
+
+        return file.startsWith(root) && Files.isRegularFile(file) ? file : null;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag) || ("W/" + value).equals(etag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the first and last byte of the range, or null when it is outside the file
+     */
+    private static long[] bounds(String first, String last, long length) {
+        if (first.isEmpty() && last.isEmpty()) {
+            return null;
+        }
+
+        try {
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+
+                return suffix == 0 || length == 0 ? null : new long[] { Math.max(0, length - suffix), length - 1 };
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+
+            return start >= length || start > end ? null : new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.tericcabrel.authorization.configs;
+
+import com.tericcabrel.authorization.services.LocalFileStorage;
+import com.tericcabrel.authorization.services.S3FileStorage;
+import com.tericcabrel.authorization.services.interfaces.FileStorage;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.time.Duration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+@Configuration
+public class FileStorageConfiguration {
+    private final Environment environment;
+
+    public FileStorageConfiguration(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.file.storage.type", havingValue = "local", matchIfMissing = true)
+    public FileStorage localFileStorage() {
+        return new LocalFileStorage(
+            Paths.get(environment.getProperty("app.file.upload-dir", "./uploads/avatars")).toAbsolutePath().normalize(),
+            "/avatars/"
+        );
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.file.storage.type", havingValue = "s3")
+    public S3AsyncClient s3AsyncClient() {
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+            .region(region())
+            .credentialsProvider(credentialsProvider())
+            .forcePathStyle(environment.getProperty("app.file.s3.path-style", Boolean.class, false))
+            .multipartEnabled(true)
+            .multipartConfiguration(MultipartConfiguration.builder()
+                .thresholdInBytes(environment.getProperty("app.file.s3.multipart-threshold-bytes", Long.class, 8L * 1024 * 1024))
+                .minimumPartSizeInBytes(environment.getProperty("app.file.s3.part-size-bytes", Long.class, 8L * 1024 * 1024))
+                .build())
+            .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(environment.getProperty("app.file.s3.max-connections", Integer.class, 50))
+                .connectionAcquisitionTimeout(Duration.ofMillis(environment.getProperty("app.file.s3.acquire-timeout-ms", Long.class, 10_000L))));
+
+        String endpoint = environment.getProperty("app.file.s3.endpoint");
+        if (endpoint != null && !endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+
+        return builder.build();
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.file.storage.type", havingValue = "s3")
+    public S3Presigner s3Presigner() {
+        S3Presigner.Builder builder = S3Presigner.builder()
+            .region(region())
+            .credentialsProvider(credentialsProvider())
+            .serviceConfiguration(S3Configuration.builder()
+                .pathStyleAccessEnabled(environment.getProperty("app.file.s3.path-style", Boolean.class, false))
+                .build());
+
+        // The URLs are followed by the clients, which may reach the storage through another host than the application
+        String endpoint = environment.getProperty("app.file.s3.public-endpoint", environment.getProperty("app.file.s3.endpoint", ""));
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+
+        return builder.build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.file.storage.type", havingValue = "s3")
+    public FileStorage s3FileStorage(S3AsyncClient s3AsyncClient, S3Presigner s3Presigner) {
+        String bucket = environment.getProperty("app.file.s3.bucket");
+
+        if (bucket == null || bucket.isBlank()) {
+            throw new IllegalStateException("app.file.s3.bucket is required with the s3 file storage");
+        }
+
+        return new S3FileStorage(
+            s3AsyncClient,
+            s3Presigner,
+            bucket,
+            Duration.ofSeconds(environment.getProperty("app.file.s3.presign-duration-seconds", Long.class, 900L)),
+            environment.getProperty("app.file.s3.timeout-ms", Long.class, 60_000L)
+        );
+    }
+
+    private Region region() {
+        return Region.of(environment.getProperty("app.file.s3.region", "us-east-1"));
+    }
+
+    private AwsCredentialsProvider credentialsProvider() {
+        String accessKey = environment.getProperty("app.file.s3.access-key");
+
+        if (accessKey == null || accessKey.isBlank()) {
+            return DefaultCredentialsProvider.create();
+        }
+
+        return StaticCredentialsProvider.create(
+            AwsBasicCredentials.create(accessKey, environment.getProperty("app.file.s3.secret-key", ""))
+        );
+    }
+}
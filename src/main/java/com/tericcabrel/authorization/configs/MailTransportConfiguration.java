@@ -0,0 +1,55 @@
+package com.tericcabrel.authorization.configs;
+
+import com.tericcabrel.authorization.services.JavaMailSenderTransport;
+import com.tericcabrel.authorization.services.PooledMailTransport;
+import com.tericcabrel.authorization.services.interfaces.MailTransport;
+import com.tericcabrel.authorization.utils.DomainRateLimiter;
+import com.tericcabrel.authorization.utils.SmtpTransportPool;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.mail.javamail.JavaMailSender;
+
+@Configuration
+public class MailTransportConfiguration {
+    private final Environment environment;
+
+    public MailTransportConfiguration(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Bean
+    public DomainRateLimiter domainRateLimiter() {
+        return new DomainRateLimiter(
+            environment.getProperty("app.mail.transport.domain-rate.limit", Long.class, 60L),
+            environment.getProperty("app.mail.transport.domain-rate.period-ms", Long.class, 60_000L),
+            environment.getProperty("app.mail.transport.domain-rate.max-wait-ms", Long.class, 10_000L)
+        );
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.mail.transport.pooled", havingValue = "true", matchIfMissing = true)
+    public SmtpTransportPool smtpTransportPool(MailProperties mailProperties) {
+        return new SmtpTransportPool(
+            mailProperties,
+            environment.getProperty("app.mail.transport.max-connections", Integer.class, 4),
+            environment.getProperty("app.mail.transport.max-messages-per-connection", Integer.class, 100),
+            environment.getProperty("app.mail.transport.max-idle-ms", Long.class, 30_000L),
+            environment.getProperty("app.mail.transport.borrow-timeout-ms", Long.class, 10_000L)
+        );
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.mail.transport.pooled", havingValue = "true", matchIfMissing = true)
+    public MailTransport pooledMailTransport(SmtpTransportPool smtpTransportPool, DomainRateLimiter domainRateLimiter) {
+        return new PooledMailTransport(smtpTransportPool, domainRateLimiter);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.mail.transport.pooled", havingValue = "false")
+    public MailTransport javaMailSenderTransport(JavaMailSender mailSender, DomainRateLimiter domainRateLimiter) {
+        return new JavaMailSenderTransport(mailSender, domainRateLimiter);
+    }
+}
@@ -0,0 +1,19 @@
+package com.tericcabrel.authorization.configs;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+
+/**
+ * Transactions are only available on a replica set or a sharded cluster, so they are enabled explicitly.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.mongodb.transactions.enabled", havingValue = "true")
+public class MongoTransactionConfiguration {
+    @Bean
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory mongoDatabaseFactory) {
+        return new MongoTransactionManager(mongoDatabaseFactory);
+    }
+}
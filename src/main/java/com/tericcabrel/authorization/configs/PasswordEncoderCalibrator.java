@@ -0,0 +1,125 @@
+package com.tericcabrel.authorization.configs;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm;
+
+/**
+ * Measures the time taken to hash a password on this host and finds the highest cost for each algorithm that stays
+ * under the target latency. The cost never goes below the minimum of the algorithm, even on a slow host.
+ * <p>
+ * PBKDF2 is not calibrated: its iteration count is part of the encoder id, so hosts calibrating to different counts
+ * would rehash each other's passwords on every login.
+ */
+public class PasswordEncoderCalibrator {
+    public static final int BCRYPT_MIN_STRENGTH = 10;
+
+    public static final int BCRYPT_MAX_STRENGTH = 16;
+
+    public static final int ARGON2_MIN_ITERATIONS = 2;
+
+    public static final int ARGON2_MAX_ITERATIONS = 10;
+
+    public static final int ARGON2_MEMORY_KIB = 19 * 1024;
+
+    /**
+     * The PBKDF2 hash does not store its iteration count, so the count is part of the encoder id and is picked from a
+     * fixed list to keep the existing hashes verifiable.
+     */
+    public static final int[] PBKDF2_ITERATIONS = { 310_000, 600_000, 1_200_000, 2_400_000 };
+
+    public static final int PBKDF2_DEFAULT_ITERATIONS = 600_000;
+
+    private static final String PBKDF2_ID_PREFIX = "pbkdf2-";
+
+    private static final String SAMPLE_PASSWORD = "Calibration-Passw0rd";
+
+    private static final int SAMPLES = 3;
+
+    private final long targetNanos;
+
+    public PasswordEncoderCalibrator(Duration targetLatency) {
+        this.targetNanos = targetLatency.toNanos();
+    }
+
+    public int bcryptStrength() {
+        return calibrate(BCRYPT_MIN_STRENGTH, BCRYPT_MAX_STRENGTH, PasswordEncoderCalibrator::bcrypt);
+    }
+
+    public int argon2Iterations() {
+        return calibrate(ARGON2_MIN_ITERATIONS, ARGON2_MAX_ITERATIONS, PasswordEncoderCalibrator::argon2);
+    }
+
+    public static PasswordEncoder bcrypt(int strength) {
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    public static PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(16, 32, 1, ARGON2_MEMORY_KIB, iterations);
+    }
+
+    public static PasswordEncoder pbkdf2(int iterations) {
+        return new Pbkdf2PasswordEncoder("", 16, iterations, SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+
+    public static String pbkdf2Id(int iterations) {
+        return PBKDF2_ID_PREFIX + iterations;
+    }
+
+    /**
+     * Returns the iteration count of a PBKDF2 hash prefixed with its encoder id, or null for the other hashes.
+     */
+    public static Integer pbkdf2Iterations(String prefixEncodedPassword) {
+        String prefix = "{" + PBKDF2_ID_PREFIX;
+
+        if (prefixEncodedPassword == null || !prefixEncodedPassword.startsWith(prefix)) {
+            return null;
+        }
+
+        int end = prefixEncodedPassword.indexOf('}', prefix.length());
+
+        try {
+            return end < 0 ? null : Integer.valueOf(prefixEncodedPassword.substring(prefix.length(), end));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private int calibrate(int minCost, int maxCost, IntFunction<PasswordEncoder> encoderFactory) {
+        int cost = minCost;
+
+        for (int candidate = minCost + 1; candidate <= maxCost; candidate++) {
+            if (measure(encoderFactory.apply(candidate)) > targetNanos) {
+                break;
+            }
+
+            cost = candidate;
+        }
+
+        return cost;
+    }
+
+    /**
+     * Returns the median duration of a few hashes, after a first one to warm up the code path.
+     */
+    private long measure(PasswordEncoder passwordEncoder) {
+        long[] durations = new long[SAMPLES];
+
+        passwordEncoder.encode(SAMPLE_PASSWORD);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            passwordEncoder.encode(SAMPLE_PASSWORD);
+            durations[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(durations);
+
+        return durations[SAMPLES / 2];
+    }
+}
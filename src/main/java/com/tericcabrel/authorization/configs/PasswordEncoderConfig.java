@@ -0,0 +1,100 @@
+package com.tericcabrel.authorization.configs;
+
+import static com.tericcabrel.authorization.configs.PasswordEncoderCalibrator.ARGON2_MIN_ITERATIONS;
+import static com.tericcabrel.authorization.configs.PasswordEncoderCalibrator.BCRYPT_MIN_STRENGTH;
+import static com.tericcabrel.authorization.configs.PasswordEncoderCalibrator.PBKDF2_DEFAULT_ITERATIONS;
+import static com.tericcabrel.authorization.configs.PasswordEncoderCalibrator.PBKDF2_ITERATIONS;
+
+import com.tericcabrel.authorization.models.enums.PasswordHashAlgorithm;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@Configuration
+public class PasswordEncoderConfig {
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final Environment environment;
+
+    public PasswordEncoderConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Hashes new passwords with the configured algorithm, at the cost calibrated for this host, and still verifies the
+     * hashes produced by the other algorithms. The hashes stored before the encoder ids were added are bcrypt hashes
+     * without prefix.
+     * <p>
+     * The PBKDF2 iteration count is a fixed setting, and a PBKDF2 hash is only upgraded when its count is lower, so a
+     * change of the setting never downgrades the stored hashes.
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        PasswordHashAlgorithm algorithm = environment.getProperty(
+            "app.password.algorithm", PasswordHashAlgorithm.class, PasswordHashAlgorithm.BCRYPT
+        );
+        boolean calibrationEnabled = environment.getProperty("app.password.calibration-enabled", Boolean.class, true);
+        long targetLatency = environment.getProperty("app.password.target-latency-ms", Long.class, 250L);
+
+        PasswordEncoderCalibrator calibrator = new PasswordEncoderCalibrator(Duration.ofMillis(targetLatency));
+
+        int bcryptStrength = calibrationEnabled && algorithm == PasswordHashAlgorithm.BCRYPT
+            ? calibrator.bcryptStrength()
+            : BCRYPT_MIN_STRENGTH;
+        int argon2Iterations = calibrationEnabled && algorithm == PasswordHashAlgorithm.ARGON2
+            ? calibrator.argon2Iterations()
+            : ARGON2_MIN_ITERATIONS;
+        int pbkdf2Iterations = environment.getProperty(
+            "app.password.pbkdf2-iterations", Integer.class, PBKDF2_DEFAULT_ITERATIONS
+        );
+
+        if (Arrays.stream(PBKDF2_ITERATIONS).noneMatch(iterations -> iterations == pbkdf2Iterations)) {
+            throw new IllegalStateException(
+                "app.password.pbkdf2-iterations must be one of " + Arrays.toString(PBKDF2_ITERATIONS)
+            );
+        }
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(PasswordHashAlgorithm.BCRYPT.getValue(), PasswordEncoderCalibrator.bcrypt(bcryptStrength));
+        encoders.put(PasswordHashAlgorithm.ARGON2.getValue(), PasswordEncoderCalibrator.argon2(argon2Iterations));
+
+        for (int iterations : PBKDF2_ITERATIONS) {
+            encoders.put(PasswordEncoderCalibrator.pbkdf2Id(iterations), PasswordEncoderCalibrator.pbkdf2(iterations));
+        }
+
+        String idForEncode = switch (algorithm) {
+            case ARGON2 -> PasswordHashAlgorithm.ARGON2.getValue();
+            case PBKDF2 -> PasswordEncoderCalibrator.pbkdf2Id(pbkdf2Iterations);
+            default -> PasswordHashAlgorithm.BCRYPT.getValue();
+        };
+
+        logger.info(
+            "Password hashing: algorithm=" + idForEncode + ", bcrypt strength=" + bcryptStrength
+                + ", argon2 iterations=" + argon2Iterations + ", target latency=" + targetLatency + "ms"
+        );
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(idForEncode, encoders) {
+            @Override
+            public boolean upgradeEncoding(String prefixEncodedPassword) {
+                Integer storedIterations = PasswordEncoderCalibrator.pbkdf2Iterations(prefixEncodedPassword);
+
+                if (algorithm == PasswordHashAlgorithm.PBKDF2 && storedIterations != null) {
+                    return storedIterations < pbkdf2Iterations;
+                }
+
+                return super.upgradeEncoding(prefixEncodedPassword);
+            }
+        };
+        passwordEncoder.setDefaultPasswordEncoderForMatches(encoders.get(PasswordHashAlgorithm.BCRYPT.getValue()));
+
+        return passwordEncoder;
+    }
+}
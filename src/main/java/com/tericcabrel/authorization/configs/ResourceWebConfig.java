@@ -1,5 +1,10 @@
 package com.tericcabrel.authorization.configs;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
@@ -21,4 +26,15 @@ public class ResourceWebConfig implements WebMvcConfigurer {
 
         registry.addResourceHandler("/uploads/**").addResourceLocations(location);
     }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.file.storage.type", havingValue = "local", matchIfMissing = true)
+    public ServletRegistrationBean<AvatarServlet> avatarServlet() {
+        Path root = Paths.get(environment.getProperty("app.file.upload-dir", "./uploads/avatars")).toAbsolutePath().normalize();
+
+        ServletRegistrationBean<AvatarServlet> registration = new ServletRegistrationBean<>(new AvatarServlet(root), "/avatars/*");
+        registration.setName("avatarServlet");
+
+        return registration;
+    }
 }
@@ -8,9 +8,14 @@ import io.swagger.v3.oas.models.info.License;
 import io.swagger.v3.oas.models.servers.Server;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 import java.util.List;
 
+/**
+ * Nothing in the application reads the description, so it is only created when springdoc asks for it.
+ */
+@Lazy
 @Configuration
 public class SwaggerConfiguration {
 
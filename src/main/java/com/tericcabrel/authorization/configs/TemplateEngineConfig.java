@@ -3,7 +3,10 @@ package com.tericcabrel.authorization.configs;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Description;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.thymeleaf.TemplateEngine;
@@ -15,11 +18,29 @@ import org.thymeleaf.templateresolver.ITemplateResolver;
 
 import java.util.Collections;
 
+/**
+ * The engines are created on their first use: the view resolver when the dispatcher servlet starts, and the email
+ * engine when the templates are warmed up once the application is ready, so neither delays the startup.
+ */
+@Lazy
 @Configuration
 public class TemplateEngineConfig implements WebMvcConfigurer {
 
     private static final String EMAIL_TEMPLATE_ENCODING = "UTF-8";
 
+    private final Environment environment;
+
+    public TemplateEngineConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * The parsed templates are cached, except in dev mode where a template edited on disk must be picked up.
+     */
+    private boolean isCacheable() {
+        return !environment.acceptsProfiles(Profiles.of("dev"));
+    }
+
     @Bean
     @Primary
     public TemplateEngine emailTemplateEngine() {
@@ -36,7 +57,7 @@ public class TemplateEngineConfig implements WebMvcConfigurer {
         templateResolver.setSuffix(".html");
         templateResolver.setTemplateMode(TemplateMode.HTML);
         templateResolver.setCharacterEncoding(EMAIL_TEMPLATE_ENCODING);
-        templateResolver.setCacheable(false);
+        templateResolver.setCacheable(isCacheable());
         return templateResolver;
     }
 
@@ -48,7 +69,7 @@ public class TemplateEngineConfig implements WebMvcConfigurer {
         templateResolver.setSuffix(".html");
         templateResolver.setTemplateMode(TemplateMode.HTML);
         templateResolver.setCharacterEncoding(EMAIL_TEMPLATE_ENCODING);
-        templateResolver.setCacheable(false);
+        templateResolver.setCacheable(isCacheable());
         return templateResolver;
     }
 
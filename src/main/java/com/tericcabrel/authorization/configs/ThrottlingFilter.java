@@ -0,0 +1,67 @@
+package com.tericcabrel.authorization.configs;
+
+import static com.tericcabrel.authorization.utils.Constants.MESSAGE_KEY;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tericcabrel.authorization.exceptions.TooManyRequestsException;
+import com.tericcabrel.authorization.models.enums.ThrottleRule;
+import com.tericcabrel.authorization.models.response.BadRequestResponse;
+import com.tericcabrel.authorization.services.interfaces.ThrottlingService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Applies the per-IP limits of the public authentication endpoints before the request body is even read. The
+ * per-account limits need the body and are checked by the controllers.
+ * <p>
+ * Behind a load balancer, the remote address is the client's one only because {@code server.forward-headers-strategy}
+ * makes Tomcat resolve it from {@code X-Forwarded-For}, for the proxies listed in
+ * {@code server.tomcat.remoteip.internal-proxies}. Without it, every client would share the bucket of the proxy.
+ */
+public class ThrottlingFilter extends OncePerRequestFilter {
+    private static final Map<String, ThrottleRule> RULES = Map.of(
+        "/auth/login", ThrottleRule.LOGIN_IP,
+        "/auth/register", ThrottleRule.REGISTER_IP,
+        "/auth/forgot-password", ThrottleRule.FORGOT_PASSWORD_IP
+    );
+
+    private final ThrottlingService throttlingService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ThrottlingFilter(ThrottlingService throttlingService) {
+        this.throttlingService = throttlingService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || !RULES.containsKey(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest req, HttpServletResponse res, FilterChain chain
+    ) throws IOException, ServletException {
+        try {
+            throttlingService.check(RULES.get(req.getServletPath()), req.getRemoteAddr());
+        } catch (TooManyRequestsException e) {
+            res.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            res.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(res.getOutputStream(), new BadRequestResponse(Map.of(MESSAGE_KEY, e.getMessage())));
+
+            return;
+        }
+
+        chain.doFilter(req, res);
+    }
+}
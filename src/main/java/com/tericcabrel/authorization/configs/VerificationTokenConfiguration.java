@@ -0,0 +1,44 @@
+package com.tericcabrel.authorization.configs;
+
+import com.tericcabrel.authorization.repositories.UserRepository;
+import com.tericcabrel.authorization.services.SignedVerificationTokenService;
+import com.tericcabrel.authorization.services.StoredVerificationTokenService;
+import com.tericcabrel.authorization.services.interfaces.UserAccountService;
+import com.tericcabrel.authorization.services.interfaces.VerificationTokenService;
+import java.time.Clock;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class VerificationTokenConfiguration {
+    private final Environment environment;
+
+    public VerificationTokenConfiguration(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.verification-token.mode", havingValue = "stored", matchIfMissing = true)
+    public VerificationTokenService storedVerificationTokenService(UserAccountService userAccountService) {
+        return new StoredVerificationTokenService(userAccountService);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.verification-token.mode", havingValue = "signed")
+    public VerificationTokenService signedVerificationTokenService(UserRepository userRepository) {
+        String secret = environment.getProperty("app.verification-token.secret", environment.getProperty("app.jwt.secret.key"));
+
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("app.verification-token.secret is required with the signed verification tokens");
+        }
+
+        return new SignedVerificationTokenService(
+            userRepository,
+            secret,
+            environment.getProperty("app.verification-token.lifetime-seconds", Long.class, 2 * 24 * 60 * 60L),
+            Clock.systemUTC()
+        );
+    }
+}
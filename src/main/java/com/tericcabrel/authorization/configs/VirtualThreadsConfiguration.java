@@ -0,0 +1,59 @@
+package com.tericcabrel.authorization.configs;
+
+import com.tericcabrel.authorization.utils.VirtualThreadPinningMonitor;
+import com.tericcabrel.authorization.utils.VirtualThreadTaskExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Runs the requests, the login writes and the emails on virtual threads, so a thread blocked on Mongo, Redis or SMTP
+ * doesn't hold a platform thread. The executors keep the bound of the pools they replace, as the number of tasks in
+ * flight. The bulk jobs and the avatar processing stay on their pools, since they are bound by the CPU.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfiguration {
+    private final Environment environment;
+
+    public VirtualThreadsConfiguration(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-virtual-", 0).factory())
+        );
+    }
+
+    @Bean(name = "loginTaskExecutor", destroyMethod = "close")
+    public VirtualThreadTaskExecutor loginTaskExecutor() {
+        int maxConcurrency = environment.getProperty("app.login.pool-size", Integer.class, 4)
+            + environment.getProperty("app.login.queue-capacity", Integer.class, 256);
+
+        return new VirtualThreadTaskExecutor("login-", maxConcurrency, true, 0);
+    }
+
+    @Bean(name = "mailTaskExecutor", destroyMethod = "close")
+    public VirtualThreadTaskExecutor mailTaskExecutor() {
+        int maxConcurrency = environment.getProperty("app.mail.outbox.pool-size", Integer.class, 4)
+            + environment.getProperty("app.mail.outbox.queue-capacity", Integer.class, 40);
+
+        return new VirtualThreadTaskExecutor("mail-dispatch-", maxConcurrency, false, 30_000);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.threads.virtual.pinning.enabled", havingValue = "true", matchIfMissing = true)
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry meterRegistry) {
+        return new VirtualThreadPinningMonitor(
+            meterRegistry,
+            Duration.ofMillis(environment.getProperty("app.threads.virtual.pinning.threshold-ms", Long.class, 20L))
+        );
+    }
+}
@@ -1,15 +1,21 @@
 package com.tericcabrel.authorization.configs;
 
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
+import jakarta.servlet.DispatcherType;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import com.tericcabrel.authorization.services.UserServiceImpl;
+import com.tericcabrel.authorization.services.interfaces.ThrottlingService;
 import com.tericcabrel.authorization.utils.JwtTokenUtil;
 
 @Configuration
@@ -18,16 +24,18 @@ public class WebSecurityConfig {
     private final UserServiceImpl userServiceImpl;
     private final JwtTokenUtil jwtTokenUtil;
     private final AuthEntryPoint unauthorizedHandler;
+    private final ThrottlingService throttlingService;
 
-    public WebSecurityConfig(UserServiceImpl userServiceImpl, JwtTokenUtil jwtTokenUtil, AuthEntryPoint unauthorizedHandler) {
+    public WebSecurityConfig(
+            UserServiceImpl userServiceImpl,
+            JwtTokenUtil jwtTokenUtil,
+            AuthEntryPoint unauthorizedHandler,
+            ThrottlingService throttlingService
+    ) {
         this.userServiceImpl = userServiceImpl;
         this.jwtTokenUtil = jwtTokenUtil;
         this.unauthorizedHandler = unauthorizedHandler;
-    }
-
-    @Bean
-    public BCryptPasswordEncoder encoder() {
-        return new BCryptPasswordEncoder();
+        this.throttlingService = throttlingService;
     }
 
     @Bean
@@ -40,6 +48,26 @@ public class WebSecurityConfig {
         return new AuthenticationFilter(userServiceImpl, jwtTokenUtil);
     }
 
+    /**
+     * The filter is a bean so it can be injected in the security chain, but it must not also be registered by Spring
+     * Boot for every request of the servlet container.
+     */
+    @Bean
+    public FilterRegistrationBean<AuthenticationFilter> authenticationFilterRegistration(AuthenticationFilter authenticationFilter) {
+        FilterRegistrationBean<AuthenticationFilter> registration = new FilterRegistrationBean<>(authenticationFilter);
+        registration.setEnabled(false);
+
+        return registration;
+    }
+
+    /**
+     * The avatars are public files served by {@link AvatarServlet}, they don't go through the security filters.
+     */
+    @Bean
+    public WebSecurityCustomizer webSecurityCustomizer() {
+        return web -> web.ignoring().requestMatchers(antMatcher("/avatars/**"));
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -47,15 +75,19 @@ public class WebSecurityConfig {
                 .and()
                 .csrf().disable()
                 .authorizeHttpRequests()
+                // Async endpoints are dispatched a second time to write the result, the request was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+                // Ant matchers, because the avatar servlet is registered beside the dispatcher servlet
                 .requestMatchers(
-                        "/auth/**",
-                        "/token/**",
-                        "/v3/api-docs/**",
-                        "/swagger-resources/**",
-                        "/swagger-ui/**",
-                        "/webjars/**",
-                        "/uploads/**",
-                        "favicon.ico"
+                        antMatcher("/auth/**"),
+                        antMatcher("/token/**"),
+                        antMatcher("/openapi.json"),
+                        antMatcher("/v3/api-docs/**"),
+                        antMatcher("/swagger-resources/**"),
+                        antMatcher("/swagger-ui/**"),
+                        antMatcher("/webjars/**"),
+                        antMatcher("/uploads/**"),
+                        antMatcher("/favicon.ico")
                 ).permitAll()
                 .anyRequest().authenticated()
                 .and()
@@ -65,6 +97,7 @@ public class WebSecurityConfig {
                 .sessionManagement()
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS);
 
+        http.addFilterBefore(new ThrottlingFilter(throttlingService), UsernamePasswordAuthenticationFilter.class);
         http.addFilterBefore(authenticationTokenFilterBean(), UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
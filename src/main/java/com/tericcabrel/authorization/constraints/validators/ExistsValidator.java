@@ -1,30 +1,34 @@
 package com.tericcabrel.authorization.constraints.validators;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
 import com.tericcabrel.authorization.constraints.Exists;
-import com.tericcabrel.authorization.utils.Helpers;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
-import org.springframework.beans.BeanUtils;
 import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.InvocationTargetException;
-
 @Component
 public class ExistsValidator implements ConstraintValidator<Exists, Object> {
     private String propertyName;
-    private String repositoryName;
+    private PropertyAccessor propertyAccessor;
+    private Class<?> entityClass;
 
     private final ApplicationContext applicationContext;
+    private final MongoTemplate mongoTemplate;
 
-    public ExistsValidator(ApplicationContext applicationContext) {
+    public ExistsValidator(ApplicationContext applicationContext, MongoTemplate mongoTemplate) {
         this.applicationContext = applicationContext;
+        this.mongoTemplate = mongoTemplate;
     }
 
     @Override
     public void initialize(final Exists constraintAnnotation) {
         propertyName = constraintAnnotation.property();
-        repositoryName = constraintAnnotation.repository();
+        propertyAccessor = new PropertyAccessor(propertyName);
+        entityClass = RepositoryEntity.resolve(applicationContext, constraintAnnotation.repository());
     }
 
     @Override
@@ -33,31 +37,13 @@ public class ExistsValidator implements ConstraintValidator<Exists, Object> {
             return true; // Skip validation if the value is null
         }
 
-        try {
-            // Resolve the repository bean dynamically
-            String fullRepositoryName = "com.tericcabrel.authorization.repositories." + repositoryName;
-            Class<?> repositoryClass = Class.forName(fullRepositoryName);
-            Object repositoryInstance = applicationContext.getBean(repositoryClass);
-
-            // Retrieve the property value
-            Object propertyValue = BeanUtils.getPropertyDescriptor(value.getClass(), propertyName)
-                    .getReadMethod().invoke(value);
-
-            if (propertyValue == null) {
-                return false; // If the property value is null, validation fails
-            }
+        Object propertyValue = propertyAccessor.get(value);
 
-            // Build method name dynamically (e.g., "findByPropertyName")
-            String methodName = "findBy" + Helpers.capitalize(propertyName);
-            Object result = repositoryClass.getMethod(methodName, String.class)
-                    .invoke(repositoryInstance, propertyValue.toString());
-
-            // Return true if the result exists, false otherwise
-            return result != null;
-
-        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-            e.printStackTrace();
-            return false; // Validation fails if any exception occurs
+        if (propertyValue == null) {
+            return false; // If the property value is null, validation fails
         }
+
+        // Stops at the first match and sends no document back, unlike the finder which loaded the whole user
+        return mongoTemplate.exists(query(where(propertyName).is(propertyValue.toString())), entityClass);
     }
 }
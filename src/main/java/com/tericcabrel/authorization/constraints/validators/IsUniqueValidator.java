@@ -1,70 +1,93 @@
 package com.tericcabrel.authorization.constraints.validators;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
 import com.tericcabrel.authorization.constraints.IsUnique;
-import com.tericcabrel.authorization.utils.Helpers;
+import com.tericcabrel.authorization.models.entities.BaseModel;
+import com.tericcabrel.authorization.models.entities.User;
+import com.tericcabrel.authorization.services.interfaces.EmailFilterService;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
-import org.springframework.beans.BeanUtils;
 import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.InvocationTargetException;
-
 @Component
 public class IsUniqueValidator implements ConstraintValidator<IsUnique, Object> {
     private String propertyName;
-    private String repositoryName;
     private UpdateAction action;
+    private PropertyAccessor propertyAccessor;
+    private PropertyAccessor idAccessor;
+    private Class<?> entityClass;
+    private boolean userEmail;
 
     private final ApplicationContext applicationContext;
+    private final MongoTemplate mongoTemplate;
+    private final EmailFilterService emailFilterService;
 
-    public IsUniqueValidator(ApplicationContext applicationContext) {
+    public IsUniqueValidator(
+            ApplicationContext applicationContext,
+            MongoTemplate mongoTemplate,
+            EmailFilterService emailFilterService
+    ) {
         this.applicationContext = applicationContext;
+        this.mongoTemplate = mongoTemplate;
+        this.emailFilterService = emailFilterService;
     }
 
     @Override
     public void initialize(final IsUnique constraintAnnotation) {
         propertyName = constraintAnnotation.property();
-        repositoryName = constraintAnnotation.repository();
         action = constraintAnnotation.action();
+        propertyAccessor = new PropertyAccessor(propertyName);
+        idAccessor = new PropertyAccessor("id");
+        entityClass = RepositoryEntity.resolve(applicationContext, constraintAnnotation.repository());
+        userEmail = entityClass == User.class && "email".equals(propertyName);
     }
 
     @Override
     public boolean isValid(final Object value, final ConstraintValidatorContext context) {
-        try {
-            // Construct the repository bean name dynamically
-            String fullRepositoryName = "com.tericcabrel.authorization.repositories." + repositoryName;
-            Class<?> repositoryClass = Class.forName(fullRepositoryName);
-            Object repositoryInstance = applicationContext.getBean(repositoryClass);
-
-            // Get the property value to check for uniqueness
-            Object propertyValue = BeanUtils.getPropertyDescriptor(value.getClass(), propertyName)
-                    .getReadMethod().invoke(value);
-
-            if (propertyValue == null) {
-                return true; // Skip validation if the property is null
-            }
+        if (value == null) {
+            return true;
+        }
+
+        // Get the property value to check for uniqueness
+        Object propertyValue = propertyAccessor.get(value);
+
+        if (propertyValue == null) {
+            return true; // Skip validation if the property is null
+        }
+
+        // The email filter knows for sure when no user has the email
+        if (userEmail && !emailFilterService.mightExist(propertyValue.toString())) {
+            return true;
+        }
+
+        Query query = query(where(propertyName).is(propertyValue.toString()));
 
-            // Construct method name dynamically (e.g., "findByPropertyName")
-            String methodName = "findBy" + Helpers.capitalize(propertyName);
-            Object result = repositoryClass.getMethod(methodName, String.class).invoke(repositoryInstance, propertyValue.toString());
-
-            if (action == UpdateAction.INSERT) {
-                return result == null; // For inserts, return true if no record exists
-            } else if (action == UpdateAction.UPDATE) {
-                // For updates, ensure the IDs match
-                Object currentId = BeanUtils.getPropertyDescriptor(value.getClass(), "id").getReadMethod().invoke(value);
-                if (result != null) {
-                    Object resultId = result.getClass().getMethod("getId").invoke(result);
-                    return currentId != null && currentId.equals(resultId);
-                }
+        if (action == UpdateAction.INSERT) {
+            boolean exists = mongoTemplate.exists(query, entityClass);
+
+            if (userEmail && !exists) {
+                emailFilterService.recordFalsePositive();
             }
-        } catch (ClassNotFoundException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-            e.printStackTrace();
-            return false; // Validation fails if an exception occurs
+
+            return !exists; // For inserts, return true if no record exists
         }
 
-        return false; // Default to false if no conditions are met
+        // For updates, the record found must be the one being updated
+        query.fields().include("_id");
+        Object result = mongoTemplate.findOne(query, entityClass);
+
+        if (result == null) {
+            return true;
+        }
+
+        Object currentId = idAccessor.get(value);
+
+        return currentId != null && result instanceof BaseModel model && currentId.equals(model.getId());
     }
 
     public enum UpdateAction {
@@ -0,0 +1,46 @@
+package com.tericcabrel.authorization.constraints.validators;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import org.springframework.beans.BeanUtils;
+
+/**
+ * Reads a property of the validated objects through a method handle, resolved once per class instead of looking up
+ * the property descriptor and invoking the getter reflectively on every validation.
+ */
+final class PropertyAccessor extends ClassValue<MethodHandle> {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final String propertyName;
+
+    PropertyAccessor(String propertyName) {
+        this.propertyName = propertyName;
+    }
+
+    Object get(Object target) {
+        try {
+            return (Object) get(target.getClass()).invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to read the property " + propertyName, e);
+        }
+    }
+
+    @Override
+    protected MethodHandle computeValue(Class<?> type) {
+        PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(type, propertyName);
+
+        if (descriptor == null || descriptor.getReadMethod() == null) {
+            throw new IllegalArgumentException("No readable property " + propertyName + " on " + type.getName());
+        }
+
+        try {
+            return MethodHandles.publicLookup().unreflect(descriptor.getReadMethod()).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("The property " + propertyName + " of " + type.getName() + " is not public", e);
+        }
+    }
+}
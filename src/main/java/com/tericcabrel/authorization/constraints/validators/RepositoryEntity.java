@@ -0,0 +1,31 @@
+package com.tericcabrel.authorization.constraints.validators;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Resolves the entity managed by a repository named in a constraint, so the validators can run an exists query on the
+ * entity collection instead of calling a finder that loads the whole document.
+ */
+final class RepositoryEntity {
+    private static final String REPOSITORIES_PACKAGE = "com.tericcabrel.authorization.repositories.";
+
+    private RepositoryEntity() {
+    }
+
+    static Class<?> resolve(ApplicationContext applicationContext, String repositoryName) {
+        try {
+            Class<?> repositoryClass = Class.forName(REPOSITORIES_PACKAGE + repositoryName, false, applicationContext.getClassLoader());
+            Class<?> entityClass = ResolvableType.forClass(repositoryClass).as(Repository.class).resolveGeneric(0);
+
+            if (entityClass == null) {
+                throw new IllegalArgumentException("Unable to resolve the entity of the repository " + repositoryName);
+            }
+
+            return entityClass;
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("The repository " + repositoryName + " doesn't exist", e);
+        }
+    }
+}
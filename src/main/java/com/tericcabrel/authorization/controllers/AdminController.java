@@ -1,13 +1,19 @@
 package com.tericcabrel.authorization.controllers;
 
 import com.tericcabrel.authorization.exceptions.ResourceNotFoundException;
+import com.tericcabrel.authorization.models.dtos.BulkUserOperationDto;
 import com.tericcabrel.authorization.models.dtos.CreateUserDto;
+import com.tericcabrel.authorization.models.entities.BulkUserJob;
 import com.tericcabrel.authorization.models.entities.Role;
 import com.tericcabrel.authorization.models.entities.User;
 import com.tericcabrel.authorization.models.response.BadRequestResponse;
+import com.tericcabrel.authorization.models.response.BulkUserJobResponse;
 import com.tericcabrel.authorization.models.response.InvalidDataResponse;
+import com.tericcabrel.authorization.models.response.PermissionSyncReport;
 import com.tericcabrel.authorization.models.response.SuccessResponse;
 import com.tericcabrel.authorization.models.response.UserResponse;
+import com.tericcabrel.authorization.services.interfaces.BulkUserService;
+import com.tericcabrel.authorization.services.interfaces.PermissionReloadService;
 import com.tericcabrel.authorization.services.interfaces.RoleService;
 import com.tericcabrel.authorization.services.interfaces.UserService;
 
@@ -18,11 +24,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import jakarta.validation.Valid;
 
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
-import static com.tericcabrel.authorization.utils.Constants.ROLE_ADMIN;
+import static com.tericcabrel.authorization.utils.Constants.*;
 
 @Tag(name = "Admin Management", description = "Endpoints for managing admin users")
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -31,10 +43,19 @@ import static com.tericcabrel.authorization.utils.Constants.ROLE_ADMIN;
 public class AdminController {
   private final RoleService roleService;
   private final UserService userService;
+  private final BulkUserService bulkUserService;
+  private final PermissionReloadService permissionReloadService;
 
-  public AdminController(RoleService roleService, UserService userService) {
+  public AdminController(
+          RoleService roleService,
+          UserService userService,
+          BulkUserService bulkUserService,
+          PermissionReloadService permissionReloadService
+  ) {
     this.roleService = roleService;
     this.userService = userService;
+    this.bulkUserService = bulkUserService;
+    this.permissionReloadService = permissionReloadService;
   }
 
   @Operation(
@@ -87,4 +108,94 @@ public class AdminController {
     userService.delete(id);
     return ResponseEntity.noContent().build();
   }
+
+  @Operation(
+          summary = SWG_ADMIN_BULK_OPERATION,
+          responses = {
+                  @ApiResponse(responseCode = "202", description = SWG_ADMIN_BULK_MESSAGE,
+                          content = {@io.swagger.v3.oas.annotations.media.Content(
+                                  mediaType = "application/json", schema = @io.swagger.v3.oas.annotations.media.Schema(implementation = BulkUserJobResponse.class))}),
+                  @ApiResponse(responseCode = "400", description = BULK_NO_TARGET_MESSAGE,
+                          content = {@io.swagger.v3.oas.annotations.media.Content(
+                                  mediaType = "application/json", schema = @io.swagger.v3.oas.annotations.media.Schema(implementation = BadRequestResponse.class))}),
+                  @ApiResponse(responseCode = "422", description = INVALID_DATA_MESSAGE,
+                          content = {@io.swagger.v3.oas.annotations.media.Content(
+                                  mediaType = "application/json", schema = @io.swagger.v3.oas.annotations.media.Schema(implementation = InvalidDataResponse.class))})
+          }
+  )
+  @PreAuthorize("hasRole('ROLE_SUPER_ADMIN')")
+  @PostMapping("/users/bulk")
+  public ResponseEntity<Object> bulkUsers(@Valid @RequestBody BulkUserOperationDto bulkUserOperationDto)
+          throws ResourceNotFoundException {
+    if (!bulkUserOperationDto.hasTarget()) {
+      Map<String, String> result = new HashMap<>();
+      result.put(MESSAGE_KEY, BULK_NO_TARGET_MESSAGE);
+
+      return ResponseEntity.badRequest().body(new BadRequestResponse(result));
+    }
+
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    BulkUserJob job = bulkUserService.submit(bulkUserOperationDto, authentication != null ? authentication.getName() : null);
+
+    return ResponseEntity.accepted().body(new BulkUserJobResponse(job));
+  }
+
+  @Operation(
+          summary = SWG_ADMIN_BULK_JOB_OPERATION,
+          responses = {
+                  @ApiResponse(responseCode = "200", description = SWG_ADMIN_BULK_JOB_MESSAGE,
+                          content = {@io.swagger.v3.oas.annotations.media.Content(
+                                  mediaType = "application/json", schema = @io.swagger.v3.oas.annotations.media.Schema(implementation = BulkUserJobResponse.class))}),
+                  @ApiResponse(responseCode = "404", description = BULK_JOB_NOT_FOUND_MESSAGE,
+                          content = {@io.swagger.v3.oas.annotations.media.Content(
+                                  mediaType = "application/json", schema = @io.swagger.v3.oas.annotations.media.Schema(implementation = BadRequestResponse.class))})
+          }
+  )
+  @PreAuthorize("hasRole('ROLE_SUPER_ADMIN')")
+  @GetMapping("/users/bulk/{jobId}")
+  public ResponseEntity<BulkUserJobResponse> bulkJob(@PathVariable String jobId) throws ResourceNotFoundException {
+    return ResponseEntity.ok(new BulkUserJobResponse(bulkUserService.findJob(jobId)));
+  }
+
+  @Operation(
+          summary = SWG_ADMIN_PERMISSION_RELOAD_OPERATION,
+          responses = {
+                  @ApiResponse(responseCode = "200", description = SWG_ADMIN_PERMISSION_RELOAD_MESSAGE,
+                          content = {@io.swagger.v3.oas.annotations.media.Content(
+                                  mediaType = "application/json", schema = @io.swagger.v3.oas.annotations.media.Schema(implementation = PermissionSyncReport.class))}),
+                  @ApiResponse(responseCode = "400", description = PERMISSION_CATALOG_INVALID_MESSAGE,
+                          content = {@io.swagger.v3.oas.annotations.media.Content(
+                                  mediaType = "application/json", schema = @io.swagger.v3.oas.annotations.media.Schema(implementation = BadRequestResponse.class))})
+          }
+  )
+  @PreAuthorize("hasRole('ROLE_SUPER_ADMIN')")
+  @PostMapping("/permissions/reload")
+  public ResponseEntity<Object> reloadPermissions() {
+    try {
+      return ResponseEntity.ok(permissionReloadService.reload("admin"));
+    } catch (IOException e) {
+      Map<String, String> result = new HashMap<>();
+      result.put(MESSAGE_KEY, PERMISSION_CATALOG_INVALID_MESSAGE + e.getMessage());
+
+      return ResponseEntity.badRequest().body(new BadRequestResponse(result));
+    }
+  }
+
+  @Operation(
+          summary = SWG_ADMIN_PERMISSION_REPORT_OPERATION,
+          responses = {
+                  @ApiResponse(responseCode = "200", description = SWG_ADMIN_PERMISSION_REPORT_MESSAGE,
+                          content = {@io.swagger.v3.oas.annotations.media.Content(
+                                  mediaType = "application/json", schema = @io.swagger.v3.oas.annotations.media.Schema(implementation = PermissionSyncReport.class))}),
+                  @ApiResponse(responseCode = "404", description = PERMISSION_RELOAD_NOT_FOUND_MESSAGE,
+                          content = {@io.swagger.v3.oas.annotations.media.Content(
+                                  mediaType = "application/json", schema = @io.swagger.v3.oas.annotations.media.Schema(implementation = BadRequestResponse.class))})
+          }
+  )
+  @PreAuthorize("hasRole('ROLE_SUPER_ADMIN')")
+  @GetMapping("/permissions/reload")
+  public ResponseEntity<PermissionSyncReport> lastPermissionReload() throws ResourceNotFoundException {
+    return ResponseEntity.ok(permissionReloadService.lastReport()
+            .orElseThrow(() -> new ResourceNotFoundException(PERMISSION_RELOAD_NOT_FOUND_MESSAGE)));
+  }
 }
@@ -0,0 +1,136 @@
+package com.tericcabrel.authorization.controllers;
+
+import static com.tericcabrel.authorization.utils.Constants.OPENAPI_SPEC_NOT_FOUND_MESSAGE;
+
+import com.tericcabrel.authorization.exceptions.ResourceNotFoundException;
+import io.swagger.v3.oas.annotations.Hidden;
+import java.io.IOException;
+import java.io.InputStream;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Serves the OpenAPI spec generated at build time, so springdoc doesn't introspect the controllers at runtime. The spec
+ * and its gzip version are read from the jar once, and each version has its own ETag, so a client revalidates for free
+ * until a deploy changes the spec.
+ * <p>
+ * Outside dev mode, where springdoc is disabled, the spec is the only documentation, so the application refuses to
+ * start from a jar built without it, unless {@code app.openapi.spec-required} is false.
+ */
+@Hidden
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+public class OpenApiController {
+    private static final String SPEC_PATH = "openapi/openapi.json";
+
+    private final byte[] spec;
+
+    private final byte[] compressedSpec;
+
+    private final String etag;
+
+    private final String compressedEtag;
+
+    public OpenApiController(Environment environment) throws IOException {
+        this.spec = read(new ClassPathResource(SPEC_PATH));
+        this.compressedSpec = read(new ClassPathResource(SPEC_PATH + ".gz"));
+
+        boolean springdocEnabled = environment.getProperty("springdoc.api-docs.enabled", Boolean.class, true);
+
+        if (spec == null && environment.getProperty("app.openapi.spec-required", Boolean.class, !springdocEnabled)) {
+            throw new IllegalStateException(OPENAPI_SPEC_NOT_FOUND_MESSAGE);
+        }
+
+        String hash = spec != null ? DigestUtils.md5DigestAsHex(spec) : null;
+        this.etag = "\"" + hash + "\"";
+        this.compressedEtag = "\"" + hash + "-gzip\"";
+    }
+
+    @GetMapping(value = "/openapi.json")
+    public ResponseEntity<byte[]> spec(
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+        WebRequest webRequest
+    ) throws ResourceNotFoundException {
+        if (spec == null) {
+            throw new ResourceNotFoundException(OPENAPI_SPEC_NOT_FOUND_MESSAGE);
+        }
+
+        boolean gzip = compressedSpec != null && acceptsGzip(acceptEncoding);
+
+        if (webRequest.checkNotModified(gzip ? compressedEtag : etag)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .cacheControl(CacheControl.noCache().cachePublic())
+            .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(compressedSpec);
+        }
+
+        return response.body(spec);
+    }
+
+    /**
+     * An explicit gzip entry wins over the wildcard, and a quality of 0 refuses the coding.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double quality = 1;
+
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = quality;
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+
+        Double quality = gzipQuality != null ? gzipQuality : wildcardQuality;
+
+        return quality != null && quality > 0;
+    }
+
+    private static byte[] read(Resource resource) throws IOException {
+        if (!resource.exists()) {
+            return null;
+        }
+
+        try (InputStream inputStream = resource.getInputStream()) {
+            return inputStream.readAllBytes();
+        }
+    }
+}
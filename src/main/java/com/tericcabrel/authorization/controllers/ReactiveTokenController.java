@@ -0,0 +1,94 @@
+package com.tericcabrel.authorization.controllers;
+
+import com.tericcabrel.authorization.models.dtos.RefreshTokenDto;
+import com.tericcabrel.authorization.models.dtos.ValidateTokenDto;
+import com.tericcabrel.authorization.models.response.AuthTokenResponse;
+import com.tericcabrel.authorization.services.interfaces.ReactiveTokenService;
+import com.tericcabrel.authorization.utils.JwtTokenUtil;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.SignatureException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.Map;
+
+import static com.tericcabrel.authorization.utils.Constants.*;
+
+/**
+ * The token endpoints without blocking a servlet thread: the request is released while Redis and Mongo are queried,
+ * and completed by the thread of the driver which receives the result. Same contract as {@link TokenController}.
+ */
+@Tag(name = SWG_TOKEN_TAG_NAME, description = SWG_TOKEN_TAG_DESCRIPTION)
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/token/reactive")
+public class ReactiveTokenController {
+
+  private final Log logger = LogFactory.getLog(this.getClass());
+  private final JwtTokenUtil jwtTokenUtil;
+  private final ReactiveTokenService reactiveTokenService;
+
+  public ReactiveTokenController(JwtTokenUtil jwtTokenUtil, ReactiveTokenService reactiveTokenService) {
+    this.jwtTokenUtil = jwtTokenUtil;
+    this.reactiveTokenService = reactiveTokenService;
+  }
+
+  @Operation(summary = SWG_TOKEN_VALIDATE_OPERATION)
+  @ApiResponses(value = {
+          @ApiResponse(responseCode = "200", description = SWG_TOKEN_VALIDATE_MESSAGE),
+          @ApiResponse(responseCode = "400", description = SWG_TOKEN_VALIDATE_ERROR),
+          @ApiResponse(responseCode = "422", description = INVALID_DATA_MESSAGE),
+  })
+  @PostMapping(value = "/validate")
+  public Mono<ResponseEntity<Map<String, String>>> validate(@Valid @RequestBody ValidateTokenDto validateTokenDto) {
+    // No I/O, the token is only parsed and its signature checked
+    try {
+      jwtTokenUtil.getUsernameFromToken(validateTokenDto.getToken());
+
+      return Mono.just(ResponseEntity.ok(Map.of(MESSAGE_KEY, VALIDATE_TOKEN_SUCCESS_MESSAGE)));
+    } catch (IllegalArgumentException e) {
+      logger.error(JWT_ILLEGAL_ARGUMENT_MESSAGE, e);
+      return Mono.just(ResponseEntity.badRequest().body(Map.of(MESSAGE_KEY, JWT_ILLEGAL_ARGUMENT_MESSAGE)));
+    } catch (ExpiredJwtException e) {
+      logger.warn(JWT_EXPIRED_MESSAGE, e);
+      return Mono.just(ResponseEntity.badRequest().body(Map.of(MESSAGE_KEY, JWT_EXPIRED_MESSAGE)));
+    } catch (SignatureException e) {
+      logger.error(JWT_SIGNATURE_MESSAGE);
+      return Mono.just(ResponseEntity.badRequest().body(Map.of(MESSAGE_KEY, JWT_SIGNATURE_MESSAGE)));
+    }
+  }
+
+  @Operation(summary = SWG_TOKEN_REFRESH_OPERATION)
+  @ApiResponses(value = {
+          @ApiResponse(responseCode = "200", description = SWG_TOKEN_REFRESH_MESSAGE),
+          @ApiResponse(responseCode = "400", description = SWG_TOKEN_REFRESH_ERROR),
+          @ApiResponse(responseCode = "422", description = INVALID_DATA_MESSAGE),
+  })
+  @PostMapping(value = "/refresh")
+  public Mono<ResponseEntity<Object>> refresh(@Valid @RequestBody RefreshTokenDto refreshTokenDto) {
+    String refreshToken = refreshTokenDto.getToken();
+
+    return reactiveTokenService.findUserIdByRefreshToken(refreshToken)
+        .flatMap(userId -> reactiveTokenService.findTokenSubject(userId)
+            .map(user -> {
+              String token = jwtTokenUtil.createTokenFromUser(user);
+              Date expirationDate = jwtTokenUtil.getExpirationDateFromToken(token);
+
+              return ResponseEntity.ok((Object) new AuthTokenResponse(token, refreshToken, expirationDate.getTime()));
+            })
+            .defaultIfEmpty(ResponseEntity.badRequest().body(Map.of(MESSAGE_KEY, TOKEN_NOT_FOUND_MESSAGE)))
+        )
+        .defaultIfEmpty(ResponseEntity.badRequest().body(Map.of(MESSAGE_KEY, INVALID_TOKEN_MESSAGE)));
+  }
+}
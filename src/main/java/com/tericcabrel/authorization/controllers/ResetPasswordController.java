@@ -1,15 +1,18 @@
 package com.tericcabrel.authorization.controllers;
 
 import com.tericcabrel.authorization.exceptions.ResourceNotFoundException;
+import com.tericcabrel.authorization.exceptions.TokenExpiredException;
 import com.tericcabrel.authorization.models.dtos.ForgotPasswordDto;
 import com.tericcabrel.authorization.models.dtos.ResetPasswordDto;
 import com.tericcabrel.authorization.models.entities.User;
-import com.tericcabrel.authorization.models.entities.UserAccount;
+import com.tericcabrel.authorization.models.enums.MailType;
+import com.tericcabrel.authorization.models.enums.ThrottleRule;
 import com.tericcabrel.authorization.models.response.BadRequestResponse;
 import com.tericcabrel.authorization.models.response.InvalidDataResponse;
 import com.tericcabrel.authorization.models.response.SuccessResponse;
-import com.tericcabrel.authorization.services.interfaces.UserAccountService;
+import com.tericcabrel.authorization.services.interfaces.ThrottlingService;
 import com.tericcabrel.authorization.services.interfaces.UserService;
+import com.tericcabrel.authorization.services.interfaces.VerificationTokenService;
 import com.tericcabrel.authorization.events.OnResetPasswordEvent;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -25,6 +28,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static com.tericcabrel.authorization.utils.Constants.*;
 
@@ -36,16 +40,19 @@ public class ResetPasswordController {
 
     private final UserService userService;
     private final ApplicationEventPublisher eventPublisher;
-    private final UserAccountService userAccountService;
+    private final VerificationTokenService verificationTokenService;
+    private final ThrottlingService throttlingService;
 
     public ResetPasswordController(
             UserService userService,
             ApplicationEventPublisher eventPublisher,
-            UserAccountService userAccountService
+            VerificationTokenService verificationTokenService,
+            ThrottlingService throttlingService
     ) {
         this.userService = userService;
         this.eventPublisher = eventPublisher;
-        this.userAccountService = userAccountService;
+        this.verificationTokenService = verificationTokenService;
+        this.throttlingService = throttlingService;
     }
 
     @Operation(summary = SWG_RESPWD_FORGOT_OPERATION)
@@ -56,6 +63,8 @@ public class ResetPasswordController {
     })
     @PostMapping(value = "/forgot-password")
     public ResponseEntity<Map<String, String>> forgotPassword(@Valid @RequestBody ForgotPasswordDto forgotPasswordDto) {
+        throttlingService.check(ThrottleRule.FORGOT_PASSWORD_ACCOUNT, forgotPasswordDto.getEmail().toLowerCase());
+
         Map<String, String> result = new HashMap<>();
 
         try {
@@ -82,26 +91,33 @@ public class ResetPasswordController {
             @ApiResponse(responseCode = "422", description = INVALID_DATA_MESSAGE)
     })
     @PostMapping(value = "/reset-password")
-    public ResponseEntity<Map<String, String>> resetPassword(@Valid @RequestBody ResetPasswordDto passwordResetDto) {
+    public CompletableFuture<ResponseEntity<Map<String, String>>> resetPassword(@Valid @RequestBody ResetPasswordDto passwordResetDto) {
         Map<String, String> result = new HashMap<>();
 
         try {
-            UserAccount userAccount = userAccountService.findByToken(passwordResetDto.getToken());
-            if (userAccount.isExpired()) {
-                result.put(MESSAGE_KEY, TOKEN_EXPIRED_MESSAGE);
-                userAccountService.delete(userAccount.getId());
-                return ResponseEntity.badRequest().body(result);
-            }
+            User user = verificationTokenService.verify(passwordResetDto.getToken(), MailType.PASSWORD_RESET);
 
-            userService.updatePassword(userAccount.getUser().getId(), passwordResetDto.getPassword());
-            result.put(MESSAGE_KEY, RESET_PASSWORD_SUCCESS_MESSAGE);
+            return userService.resetPasswordAsync(user, passwordResetDto.getPassword())
+                .thenApply(updatedUser -> {
+                    if (updatedUser == null) {
+                        result.put(MESSAGE_KEY, INVALID_TOKEN_MESSAGE);
 
-            userAccountService.delete(userAccount.getId());
-            return ResponseEntity.ok(result);
+                        return ResponseEntity.badRequest().body(result);
+                    }
+
+                    verificationTokenService.invalidate(passwordResetDto.getToken(), MailType.PASSWORD_RESET);
+
+                    result.put(MESSAGE_KEY, RESET_PASSWORD_SUCCESS_MESSAGE);
+
+                    return ResponseEntity.ok(result);
+                });
 
         } catch (ResourceNotFoundException e) {
             result.put(MESSAGE_KEY, TOKEN_NOT_FOUND_MESSAGE);
-            return ResponseEntity.badRequest().body(result);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(result));
+        } catch (TokenExpiredException e) {
+            result.put(MESSAGE_KEY, TOKEN_EXPIRED_MESSAGE);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(result));
         }
     }
 }
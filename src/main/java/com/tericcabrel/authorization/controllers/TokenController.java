@@ -95,7 +95,7 @@ public class TokenController {
       return ResponseEntity.badRequest().body(result);
     }
 
-    User user = userService.findById(refreshToken.getUserId());
+    User user = userService.findById(refreshToken.getId());
     if (user == null) {
       result.put(MESSAGE_KEY, TOKEN_NOT_FOUND_MESSAGE);
       return ResponseEntity.badRequest().body(result);
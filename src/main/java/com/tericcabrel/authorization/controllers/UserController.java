@@ -5,10 +5,13 @@ import com.tericcabrel.authorization.exceptions.ResourceNotFoundException;
 import com.tericcabrel.authorization.models.dtos.UpdatePasswordDto;
 import com.tericcabrel.authorization.models.dtos.UpdateUserDto;
 import com.tericcabrel.authorization.models.dtos.UpdateUserPermissionDto;
+import com.tericcabrel.authorization.models.dtos.UserLookupDto;
 import com.tericcabrel.authorization.models.entities.Permission;
 import com.tericcabrel.authorization.models.entities.User;
 import com.tericcabrel.authorization.models.response.*;
-import com.tericcabrel.authorization.services.FileStorageServiceImpl;
+import com.tericcabrel.authorization.exceptions.FileStorageException;
+import com.tericcabrel.authorization.models.enums.AvatarStatus;
+import com.tericcabrel.authorization.services.interfaces.AvatarService;
 import com.tericcabrel.authorization.services.interfaces.PermissionService;
 import com.tericcabrel.authorization.services.interfaces.UserService;
 
@@ -24,6 +27,7 @@ import jakarta.validation.constraints.Size;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -32,9 +36,13 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
+import java.net.URI;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static com.tericcabrel.authorization.utils.Constants.*;
 
@@ -47,12 +55,12 @@ public class UserController {
 
     private final UserService userService;
     private final PermissionService permissionService;
-    private final FileStorageServiceImpl fileStorageServiceImpl;
+    private final AvatarService avatarService;
 
-    public UserController(UserService userService, PermissionService permissionService, FileStorageServiceImpl fileStorageServiceImpl) {
+    public UserController(UserService userService, PermissionService permissionService, AvatarService avatarService) {
         this.userService = userService;
         this.permissionService = permissionService;
-        this.fileStorageServiceImpl = fileStorageServiceImpl;
+        this.avatarService = avatarService;
     }
 
     @Operation(summary = SWG_USER_LIST_OPERATION)
@@ -67,6 +75,34 @@ public class UserController {
         return ResponseEntity.ok(new UserListResponse(userService.findAll()));
     }
 
+    @Operation(summary = SWG_USER_LOOKUP_OPERATION)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = SWG_USER_LOOKUP_MESSAGE),
+            @ApiResponse(responseCode = "401", description = UNAUTHORIZED_MESSAGE),
+            @ApiResponse(responseCode = "403", description = FORBIDDEN_MESSAGE),
+            @ApiResponse(responseCode = "422", description = INVALID_DATA_MESSAGE),
+    })
+    @PreAuthorize("hasAuthority('read:users')")
+    @GetMapping(params = "ids")
+    public ResponseEntity<UserLookupResponse> many(
+            @RequestParam("ids") @Size(max = 100, message = "At most 100 identifiers can be sent in the query string") List<String> ids
+    ) {
+        return ResponseEntity.ok(lookup(ids));
+    }
+
+    @Operation(summary = SWG_USER_LOOKUP_OPERATION)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = SWG_USER_LOOKUP_MESSAGE),
+            @ApiResponse(responseCode = "401", description = UNAUTHORIZED_MESSAGE),
+            @ApiResponse(responseCode = "403", description = FORBIDDEN_MESSAGE),
+            @ApiResponse(responseCode = "422", description = INVALID_DATA_MESSAGE),
+    })
+    @PreAuthorize("hasAuthority('read:users')")
+    @PostMapping("/lookup")
+    public ResponseEntity<UserLookupResponse> lookup(@Valid @RequestBody UserLookupDto userLookupDto) {
+        return ResponseEntity.ok(lookup(userLookupDto.getIds()));
+    }
+
     @Operation(summary = SWG_USER_LOGGED_OPERATION)
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = SWG_USER_LOGGED_MESSAGE),
@@ -112,14 +148,21 @@ public class UserController {
     })
     @PreAuthorize("hasAuthority('change:password')")
     @PutMapping("/{id}/password")
-    public ResponseEntity<UserResponse> updatePassword(@PathVariable String id, @Valid @RequestBody UpdatePasswordDto updatePasswordDto)
-            throws PasswordNotMatchException, ResourceNotFoundException {
-        User user = userService.updatePassword(id, updatePasswordDto);
-        if (user == null) throw new PasswordNotMatchException(PASSWORD_NOT_MATCH_MESSAGE);
-        return ResponseEntity.ok(new UserResponse(user));
+    public CompletableFuture<ResponseEntity<UserResponse>> updatePassword(@PathVariable String id, @Valid @RequestBody UpdatePasswordDto updatePasswordDto)
+            throws ResourceNotFoundException {
+        return userService.updatePasswordAsync(id, updatePasswordDto).thenApply(user -> {
+            if (user == null) throw new CompletionException(new PasswordNotMatchException(PASSWORD_NOT_MATCH_MESSAGE));
+            return ResponseEntity.ok(new UserResponse(user));
+        });
     }
 
     @Operation(summary = SWG_USER_PICTURE_OPERATION)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = SWG_USER_PICTURE_MESSAGE),
+            @ApiResponse(responseCode = "202", description = SWG_USER_PICTURE_ACCEPTED_MESSAGE),
+            @ApiResponse(responseCode = "400", description = SWG_USER_PICTURE_ERROR),
+            @ApiResponse(responseCode = "503", description = AVATAR_QUEUE_FULL_MESSAGE),
+    })
     @PreAuthorize("hasAuthority('change:picture')")
     @PostMapping("/{id}/picture")
     public ResponseEntity<UserResponse> uploadPicture(
@@ -128,20 +171,21 @@ public class UserController {
             @RequestParam("action")
             @Pattern(regexp = "[ud]", message = "The valid value can be \"u\" or \"d\"")
             @NotBlank String action
-    ) throws IOException, ResourceNotFoundException {
-        UpdateUserDto updateUserDto = new UpdateUserDto();
-        User user;
+    ) throws ResourceNotFoundException {
+        User user = userService.findById(id);
 
         if ("u".equals(action)) {
-            String fileName = fileStorageServiceImpl.storeFile(file);
-            updateUserDto.setAvatar(fileName);
-            user = userService.update(id, updateUserDto);
-        } else if ("d".equals(action)) {
-            user = userService.findById(id);
-            if (user.getAvatar() != null && fileStorageServiceImpl.deleteFile(user.getAvatar())) {
-                user.setAvatar(null);
-                userService.update(user);
+            if (file == null || file.isEmpty()) {
+                throw new FileStorageException(AVATAR_FILE_REQUIRED_MESSAGE);
             }
+
+            // The user is updated once the picture is resized, the previous picture is released then
+            avatarService.submit(id, file);
+
+            return ResponseEntity.accepted().body(new UserResponse(user.setAvatarStatus(AvatarStatus.PROCESSING).setAvatarError(null)));
+        } else if ("d".equals(action)) {
+            avatarService.delete(id);
+            user.setAvatar(null).setAvatarSizes(null).setAvatarStatus(null).setAvatarError(null);
         } else {
             throw new IllegalArgumentException(USER_PICTURE_NO_ACTION_MESSAGE);
         }
@@ -149,6 +193,24 @@ public class UserController {
         return ResponseEntity.ok(new UserResponse(user));
     }
 
+    @Operation(summary = SWG_USER_AVATAR_OPERATION)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "302", description = SWG_USER_AVATAR_MESSAGE),
+            @ApiResponse(responseCode = "404", description = AVATAR_NOT_FOUND_MESSAGE),
+    })
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/{id}/avatar")
+    public ResponseEntity<Void> avatar(@PathVariable String id, @RequestParam(name = "size", defaultValue = "128") int size)
+            throws ResourceNotFoundException {
+        URI url = avatarService.urlFor(userService.findById(id), size);
+
+        if (url == null) {
+            throw new ResourceNotFoundException(AVATAR_NOT_FOUND_MESSAGE);
+        }
+
+        return ResponseEntity.status(HttpStatus.FOUND).location(url).build();
+    }
+
     @Operation(summary = SWG_USER_PERMISSION_ASSIGN_OPERATION)
     @PreAuthorize("hasAuthority('assign:permission')")
     @PutMapping("/{id}/permissions")
@@ -163,7 +225,7 @@ public class UserController {
             });
         });
 
-        userService.update(user);
+        userService.updatePermissions(user);
         return ResponseEntity.ok(new UserResponse(user));
     }
 
@@ -181,7 +243,13 @@ public class UserController {
             });
         });
 
-        userService.update(user);
+        userService.updatePermissions(user);
         return ResponseEntity.ok(new UserResponse(user));
     }
+
+    private UserLookupResponse lookup(List<String> ids) {
+        Map<String, User> users = userService.findAllByIds(ids);
+
+        return new UserLookupResponse(ids.stream().map(id -> new UserLookupItem(id, users.get(id))).toList());
+    }
 }
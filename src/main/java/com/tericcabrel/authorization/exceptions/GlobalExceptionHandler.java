@@ -1,5 +1,7 @@
 package com.tericcabrel.authorization.exceptions;
 
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -18,6 +20,8 @@ import com.tericcabrel.authorization.models.response.InvalidDataResponse;
 import com.tericcabrel.authorization.models.response.GenericResponse;
 import com.tericcabrel.authorization.utils.Helpers;
 
+import static com.tericcabrel.authorization.utils.Constants.DUPLICATE_KEY_MESSAGE;
+
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
@@ -105,6 +109,28 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<?> serviceUnavailableException(ServiceUnavailableException ex, WebRequest request) {
+        BadRequestResponse response = new BadRequestResponse(formatMessage(ex.getMessage()));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<?> tooManyRequestsException(TooManyRequestsException ex, WebRequest request) {
+        BadRequestResponse response = new BadRequestResponse(formatMessage(ex.getMessage()));
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response);
+    }
+
+    @ExceptionHandler(DuplicateKeyException.class)
+    public ResponseEntity<?> duplicateKeyException(DuplicateKeyException ex, WebRequest request) {
+        BadRequestResponse response = new BadRequestResponse(formatMessage(DUPLICATE_KEY_MESSAGE));
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> globalExceptionHandler(Exception ex, WebRequest request) {
         ex.printStackTrace();
@@ -0,0 +1,14 @@
+package com.tericcabrel.authorization.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class TokenExpiredException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public TokenExpiredException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,39 @@
+package com.tericcabrel.authorization.models.dtos;
+
+import com.tericcabrel.authorization.models.enums.BulkUserAction;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+@Schema(name = "BulkUserOperationParam", description = "Parameters required to run an operation on many users")
+@Accessors(chain = true)
+@Setter
+@Getter
+public class BulkUserOperationDto {
+    @Schema(description = "Operation to perform on the users", required = true, example = "DISABLE")
+    @NotNull(message = "The action is required")
+    private BulkUserAction action;
+
+    @Schema(description = "Identifiers of the users to target, exclusive with the filter", example = "[\"5f1b0c6e2a3b4c5d6e7f8a9b\"]")
+    @Size(max = 10000, message = "At most 10000 identifiers can be sent at once")
+    private List<String> ids;
+
+    @Schema(description = "Filter used to select the users, exclusive with the identifiers")
+    @Valid
+    private UserFilterDto filter;
+
+    @Schema(description = "Name of the role to assign, required when the action is CHANGE_ROLE", example = "ROLE_USER")
+    private String roleName;
+
+    /**
+     * The users are targeted either by identifiers or by a filter, never both.
+     */
+    public boolean hasTarget() {
+        return (ids != null && !ids.isEmpty()) != (filter != null && !filter.isEmpty());
+    }
+}
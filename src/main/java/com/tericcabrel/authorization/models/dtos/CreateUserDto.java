@@ -15,12 +15,9 @@ import com.tericcabrel.authorization.models.entities.Coordinates;
 @FieldMatch.List({
         @FieldMatch(first = "password", second = "confirmPassword", message = "The password fields must match")
 })
-// Uncomment when `@IsUnique` implementation is ready
-/*
 @IsUnique.List({
     @IsUnique(property = "email", repository = "UserRepository", message = "This email already exists!")
 })
-*/
 @Accessors(chain = true)
 @Setter
 @Getter
@@ -0,0 +1,28 @@
+package com.tericcabrel.authorization.models.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+@Schema(name = "UserFilterParam", description = "Criteria used to select users")
+@Accessors(chain = true)
+@Setter
+@Getter
+public class UserFilterDto {
+    @Schema(description = "Name of the role the users must have", example = "ROLE_USER")
+    private String role;
+
+    @Schema(description = "Select only enabled or disabled users", example = "true")
+    private Boolean enabled;
+
+    @Schema(description = "Select only confirmed or unconfirmed users", example = "false")
+    private Boolean confirmed;
+
+    @Schema(description = "Domain of the users email address", example = "example.com")
+    private String emailDomain;
+
+    public boolean isEmpty() {
+        return role == null && enabled == null && confirmed == null && (emailDomain == null || emailDomain.isBlank());
+    }
+}
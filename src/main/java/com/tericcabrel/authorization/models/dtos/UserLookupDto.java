@@ -0,0 +1,20 @@
+package com.tericcabrel.authorization.models.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+@Schema(name = "UserLookupParam", description = "Parameters required to retrieve many users by their identifiers")
+@Accessors(chain = true)
+@Setter
+@Getter
+public class UserLookupDto {
+    @Schema(description = "Identifiers of the users to retrieve", required = true, example = "[\"5f1b0c6e2a3b4c5d6e7f8a9b\"]")
+    @NotEmpty(message = "The field must have at least one item")
+    @Size(max = 1000, message = "At most 1000 identifiers can be sent at once")
+    private List<String> ids;
+}
@@ -0,0 +1,39 @@
+package com.tericcabrel.authorization.models.entities;
+
+import java.util.Date;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A stored avatar file, named by the SHA-256 of its content and shared by every user who uploaded the same image.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Accessors(chain = true)
+@Data
+@Document(collection = "avatar_blobs")
+@CompoundIndex(def = "{'refCount': 1, 'releasedAt': 1}")
+public class AvatarBlob extends BaseModel {
+    @Indexed(unique = true)
+    private String hash;
+
+    private String path;
+
+    private long size;
+
+    private long refCount;
+
+    /**
+     * When the last user stopped using the file, so it is deleted only after a grace period.
+     */
+    private Date releasedAt;
+
+    /**
+     * When the garbage collection started to delete the file. The record is never referenced again, a new upload of
+     * the same content waits for it to be removed.
+     */
+    private Date deletingAt;
+}
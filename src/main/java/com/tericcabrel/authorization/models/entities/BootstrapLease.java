@@ -0,0 +1,37 @@
+package com.tericcabrel.authorization.models.entities;
+
+import java.util.Date;
+import lombok.Data;
+import lombok.experimental.Accessors;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * The lease of a startup task shared by the nodes, identified by the name of the task.
+ */
+@Accessors(chain = true)
+@Data
+@Document(collection = "bootstrap_leases")
+public class BootstrapLease {
+    @Id
+    private String id;
+
+    private String owner;
+
+    /**
+     * Increased each time the lease is acquired, so a node which lost the lease can't renew, release or complete it.
+     */
+    private long fencingToken;
+
+    /**
+     * Unset when the lease is free.
+     */
+    private Date leaseUntil;
+
+    /**
+     * The last version of the task completed, so the other nodes skip it.
+     */
+    private String completedVersion;
+
+    private Date completedAt;
+}
@@ -0,0 +1,31 @@
+package com.tericcabrel.authorization.models.entities;
+
+import java.util.Date;
+import lombok.Data;
+import lombok.experimental.Accessors;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * What a startup task last applied, identified by the name of the task, so the task can skip work already done.
+ */
+@Accessors(chain = true)
+@Data
+@Document(collection = "bootstrap_state")
+public class BootstrapState {
+    @Id
+    private String id;
+
+    /**
+     * SHA-256 of the source the task applied.
+     */
+    private String checksum;
+
+    private Date appliedAt;
+
+    /**
+     * The fencing token of the lease the state was last written under. A node holding an older token can't overwrite
+     * it, so a node which lost its lease can't mark its work as the one applied.
+     */
+    private Long fencingToken;
+}
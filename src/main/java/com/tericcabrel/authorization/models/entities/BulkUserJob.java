@@ -0,0 +1,33 @@
+package com.tericcabrel.authorization.models.entities;
+
+import com.tericcabrel.authorization.models.enums.BulkJobStatus;
+import com.tericcabrel.authorization.models.enums.BulkUserAction;
+import java.util.Date;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@EqualsAndHashCode(callSuper = true)
+@Accessors(chain = true)
+@Data
+@Document(collection = "bulk_user_jobs")
+public class BulkUserJob extends BaseModel {
+    private BulkUserAction action;
+
+    private BulkJobStatus status;
+
+    private String requestedBy;
+
+    private long total;
+
+    private long processed;
+
+    private long affected;
+
+    private String error;
+
+    private Date startedAt;
+
+    private Date finishedAt;
+}
@@ -0,0 +1,49 @@
+package com.tericcabrel.authorization.models.entities;
+
+import com.tericcabrel.authorization.models.enums.MailStatus;
+import com.tericcabrel.authorization.models.enums.MailType;
+import java.util.Date;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@EqualsAndHashCode(callSuper = true)
+@Accessors(chain = true)
+@Data
+@Document(collection = "mail_outbox")
+@CompoundIndex(def = "{'status': 1, 'nextAttemptAt': 1}")
+public class MailOutbox extends BaseModel {
+    private MailType type;
+
+    private MailStatus status;
+
+    private String userId;
+
+    private String recipient;
+
+    private String recipientName;
+
+    /**
+     * Holds the raw token of the link, so it is removed once the email is sent or given up.
+     */
+    private String url;
+
+    private int attempts;
+
+    private Date nextAttemptAt;
+
+    private Date lockedUntil;
+
+    private String lastError;
+
+    private Date sentAt;
+
+    /**
+     * Set when the email is sent or given up, the row then expires.
+     */
+    @Indexed(expireAfter = "7d")
+    private Date completedAt;
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.experimental.Accessors;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @EqualsAndHashCode(callSuper = true)
@@ -14,6 +15,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @Data
 @Document(collection = "permissions")
 public class Permission extends BaseModel {
+  @Indexed(unique = true)
   private String name;
 
   private String description;
@@ -8,6 +8,7 @@ import java.util.stream.Stream;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.experimental.Accessors;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -18,6 +19,7 @@ import org.springframework.data.mongodb.core.mapping.Field;
 @Document(collection = "roles")
 public class Role extends BaseModel {
     @Field(name = "name")
+    @Indexed(unique = true)
     private String name;
 
     private String description;
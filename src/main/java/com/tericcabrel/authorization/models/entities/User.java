@@ -1,12 +1,15 @@
 package com.tericcabrel.authorization.models.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.tericcabrel.authorization.models.enums.AvatarStatus;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.experimental.Accessors;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.*;
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -24,6 +27,7 @@ public class User extends BaseModel {
     private String gender;
 
     @Field("email")
+    @Indexed(unique = true)
     private String email;
 
     @JsonIgnore
@@ -35,6 +39,21 @@ public class User extends BaseModel {
 
     private String avatar;
 
+    /**
+     * Path of the resized picture for each size, in pixels.
+     */
+    private Map<String, String> avatarSizes;
+
+    /**
+     * State of the last picture uploaded, which is processed in the background.
+     */
+    private AvatarStatus avatarStatus;
+
+    /**
+     * Why the last picture uploaded was refused, when its status is failed.
+     */
+    private String avatarError;
+
     private String timezone;
 
     private Coordinates coordinates;
@@ -4,6 +4,7 @@ import java.util.Date;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.experimental.Accessors;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -15,10 +16,20 @@ public class UserAccount extends BaseModel {
     @DBRef
     private User user;
 
-    private String token;
+    /**
+     * Only the SHA-256 hash of the token is stored, the token itself is in the link sent to the user.
+     */
+    @Indexed(unique = true, sparse = true)
+    private String tokenHash;
 
     private long expireAt;
 
+    /**
+     * Same instant as {@code expireAt}, as a date for the TTL index that removes the expired tokens.
+     */
+    @Indexed(expireAfterSeconds = 0)
+    private Date expiresAt;
+
     public boolean isExpired() {
         return expireAt < new Date().getTime();
     }
@@ -0,0 +1,13 @@
+package com.tericcabrel.authorization.models.enums;
+
+public enum AvatarStatus {
+  PROCESSING("processing"),
+  READY("ready"),
+  FAILED("failed");
+
+  String value;
+
+  AvatarStatus(String value) {
+    this.value = value;
+  }
+}
@@ -0,0 +1,14 @@
+package com.tericcabrel.authorization.models.enums;
+
+public enum BulkJobStatus {
+  PENDING("pending"),
+  RUNNING("running"),
+  COMPLETED("completed"),
+  FAILED("failed");
+
+  String value;
+
+  BulkJobStatus(String value) {
+    this.value = value;
+  }
+}
@@ -0,0 +1,18 @@
+package com.tericcabrel.authorization.models.enums;
+
+public enum BulkUserAction {
+  ENABLE("enable"),
+  DISABLE("disable"),
+  DELETE("delete"),
+  CHANGE_ROLE("change_role");
+
+  String value;
+
+  BulkUserAction(String value) {
+    this.value = value;
+  }
+
+  public boolean revokesTokens() {
+    return this != ENABLE;
+  }
+}
@@ -0,0 +1,14 @@
+package com.tericcabrel.authorization.models.enums;
+
+public enum MailStatus {
+  PENDING("pending"),
+  SENDING("sending"),
+  SENT("sent"),
+  FAILED("failed");
+
+  String value;
+
+  MailStatus(String value) {
+    this.value = value;
+  }
+}
@@ -0,0 +1,27 @@
+package com.tericcabrel.authorization.models.enums;
+
+public enum MailType {
+  REGISTRATION("registration", (byte) 0),
+  PASSWORD_RESET("password-reset", (byte) 1);
+
+  String value;
+
+  /**
+   * Written in the signed verification tokens, so it must never change once assigned, whatever the order of the
+   * constants.
+   */
+  byte code;
+
+  MailType(String value, byte code) {
+    this.value = value;
+    this.code = code;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  public byte getCode() {
+    return code;
+  }
+}
@@ -0,0 +1,17 @@
+package com.tericcabrel.authorization.models.enums;
+
+public enum PasswordHashAlgorithm {
+  BCRYPT("bcrypt"),
+  ARGON2("argon2"),
+  PBKDF2("pbkdf2");
+
+  String value;
+
+  PasswordHashAlgorithm(String value) {
+    this.value = value;
+  }
+
+  public String getValue() {
+    return value;
+  }
+}
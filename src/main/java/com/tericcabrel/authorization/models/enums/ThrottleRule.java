@@ -0,0 +1,19 @@
+package com.tericcabrel.authorization.models.enums;
+
+public enum ThrottleRule {
+  LOGIN_IP("login.ip"),
+  LOGIN_ACCOUNT("login.account"),
+  REGISTER_IP("register.ip"),
+  FORGOT_PASSWORD_IP("forgot-password.ip"),
+  FORGOT_PASSWORD_ACCOUNT("forgot-password.account");
+
+  String value;
+
+  ThrottleRule(String value) {
+    this.value = value;
+  }
+
+  public String getValue() {
+    return value;
+  }
+}
@@ -0,0 +1,13 @@
+package com.tericcabrel.authorization.models.response;
+
+import com.tericcabrel.authorization.models.entities.BulkUserJob;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@AllArgsConstructor
+@Setter
+@Getter
+public class BulkUserJobResponse {
+    private BulkUserJob data;
+}
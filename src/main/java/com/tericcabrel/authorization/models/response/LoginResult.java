@@ -0,0 +1,27 @@
+package com.tericcabrel.authorization.models.response;
+
+import com.tericcabrel.authorization.utils.PhaseTimings;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class LoginResult {
+    private AuthTokenResponse token;
+
+    private String error;
+
+    private PhaseTimings timings;
+
+    public static LoginResult success(AuthTokenResponse token, PhaseTimings timings) {
+        return new LoginResult(token, null, timings);
+    }
+
+    public static LoginResult failure(String error, PhaseTimings timings) {
+        return new LoginResult(null, error, timings);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
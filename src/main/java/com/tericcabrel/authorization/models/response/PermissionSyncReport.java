@@ -0,0 +1,52 @@
+package com.tericcabrel.authorization.models.response;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * What a synchronisation of the permission catalog changed.
+ */
+@Accessors(chain = true)
+@Setter
+@Getter
+public class PermissionSyncReport {
+    private String checksum;
+
+    /**
+     * True when the catalog was applied already and nothing was read from the database.
+     */
+    private boolean skipped;
+
+    private List<String> createdPermissionNames = new ArrayList<>();
+
+    private List<String> updatedPermissionNames = new ArrayList<>();
+
+    private List<String> removedPermissionNames = new ArrayList<>();
+
+    private List<String> updatedRoleNames = new ArrayList<>();
+
+    /**
+     * The roles named in the catalog which don't exist.
+     */
+    private List<String> missingRoles = new ArrayList<>();
+
+    /**
+     * Time spent reading and hashing the catalog file.
+     */
+    private long parseMillis;
+
+    private long durationMillis;
+
+    @Override
+    public String toString() {
+        return skipped
+            ? "unchanged catalog " + checksum
+            : "catalog " + checksum + ": " + createdPermissionNames.size() + " permissions created, "
+                + updatedPermissionNames.size() + " updated, " + removedPermissionNames.size() + " removed, "
+                + updatedRoleNames.size() + " roles updated in " + durationMillis + "ms"
+                + (missingRoles.isEmpty() ? "" : ", missing roles " + missingRoles);
+    }
+}
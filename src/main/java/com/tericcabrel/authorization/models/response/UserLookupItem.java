@@ -0,0 +1,21 @@
+package com.tericcabrel.authorization.models.response;
+
+import com.tericcabrel.authorization.models.entities.User;
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class UserLookupItem {
+    private String id;
+
+    private boolean found;
+
+    private User user;
+
+    public UserLookupItem(String id, User user) {
+        this.id = id;
+        this.found = user != null;
+        this.user = user;
+    }
+}
@@ -0,0 +1,13 @@
+package com.tericcabrel.authorization.models.response;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@AllArgsConstructor
+@Setter
+@Getter
+public class UserLookupResponse {
+    private List<UserLookupItem> data;
+}
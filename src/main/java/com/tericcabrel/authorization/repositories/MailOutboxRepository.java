@@ -0,0 +1,11 @@
+package com.tericcabrel.authorization.repositories;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.tericcabrel.authorization.models.entities.MailOutbox;
+
+@Repository
+public interface MailOutboxRepository extends MongoRepository<MailOutbox, ObjectId> {
+}
@@ -9,5 +9,5 @@ import com.tericcabrel.authorization.models.entities.UserAccount;
 
 @Repository
 public interface UserAccountRepository extends MongoRepository<UserAccount, ObjectId> {
-    Optional<UserAccount> findByToken(String token);
+    Optional<UserAccount> findByTokenHash(String tokenHash);
 }
@@ -0,0 +1,304 @@
+package com.tericcabrel.authorization.services;
+
+import static com.tericcabrel.authorization.utils.Constants.AVATAR_PROCESSING_FAILED_MESSAGE;
+import static com.tericcabrel.authorization.utils.Constants.AVATAR_QUEUE_FULL_MESSAGE;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.tericcabrel.authorization.exceptions.ServiceUnavailableException;
+import com.tericcabrel.authorization.models.entities.User;
+import com.tericcabrel.authorization.models.enums.AvatarStatus;
+import com.tericcabrel.authorization.services.interfaces.AvatarService;
+import com.tericcabrel.authorization.services.interfaces.FileStorageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Turns an uploaded picture into a fixed set of square thumbnails. The upload is only copied to the staging directory
+ * during the request; decoding and resizing run on a bounded pool. The dimensions are read from the header before
+ * decoding, so a small file declaring a huge image is refused without allocating its pixels. The thumbnails are
+ * encoded from the pixels only, so the metadata of the original (location, camera...) is never stored.
+ */
+@Service
+public class AvatarServiceImpl implements AvatarService {
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final FileStorageService fileStorageService;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final TaskExecutor avatarTaskExecutor;
+
+    private final int[] sizes;
+
+    private final long maxPixels;
+
+    private final long retryAfterSeconds;
+
+    private final Timer processingTimer;
+
+    public AvatarServiceImpl(
+        FileStorageService fileStorageService,
+        MongoTemplate mongoTemplate,
+        @Qualifier("avatarTaskExecutor") TaskExecutor avatarTaskExecutor,
+        Environment environment,
+        MeterRegistry meterRegistry
+    ) {
+        this.fileStorageService = fileStorageService;
+        this.mongoTemplate = mongoTemplate;
+        this.avatarTaskExecutor = avatarTaskExecutor;
+        this.sizes = Arrays.stream(environment.getProperty("app.avatar.sizes", "64,128,256,512").split(","))
+            .map(String::trim)
+            .mapToInt(Integer::parseInt)
+            .sorted()
+            .toArray();
+        this.maxPixels = environment.getProperty("app.avatar.max-pixels", Long.class, 25_000_000L);
+        this.retryAfterSeconds = environment.getProperty("app.avatar.retry-after-seconds", Long.class, 5L);
+        this.processingTimer = Timer.builder("auth.avatar.processing")
+            .description("Time spent decoding and resizing an uploaded picture")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void submit(String userId, MultipartFile file) {
+        Path stagedFile = fileStorageService.stage(file);
+
+        // Set before the task is queued, so it can't overwrite the status of a task which already completed
+        updateStatus(userId, AvatarStatus.PROCESSING, null);
+
+        try {
+            avatarTaskExecutor.execute(() -> processingTimer.record(() -> process(userId, stagedFile)));
+        } catch (TaskRejectedException e) {
+            fileStorageService.deleteStaged(stagedFile);
+            updateStatus(userId, AvatarStatus.FAILED, AVATAR_QUEUE_FULL_MESSAGE);
+
+            throw new ServiceUnavailableException(AVATAR_QUEUE_FULL_MESSAGE, retryAfterSeconds, e);
+        }
+    }
+
+    @Override
+    public URI urlFor(User user, int size) {
+        String path = pathFor(user, size);
+
+        return path != null ? fileStorageService.urlOf(path) : null;
+    }
+
+    private String pathFor(User user, int size) {
+        Map<String, String> avatarSizes = user.getAvatarSizes();
+
+        if (avatarSizes == null || avatarSizes.isEmpty()) {
+            return user.getAvatar();
+        }
+
+        String path = null;
+        for (int available : sizes) {
+            path = avatarSizes.getOrDefault(String.valueOf(available), path);
+
+            if (available >= size && path != null) {
+                break;
+            }
+        }
+
+        return path != null ? path : user.getAvatar();
+    }
+
+    @Override
+    public void delete(String userId) {
+        Query userQuery = query(where("_id").is(new ObjectId(userId)));
+        userQuery.fields().include("avatar").include("avatarSizes");
+
+        // Only the paths this write removed are released, so a concurrent delete or upload can't release them twice
+        User previous = mongoTemplate.findAndModify(
+            userQuery,
+            new Update()
+                .unset("avatar")
+                .unset("avatarSizes")
+                .unset("avatarStatus")
+                .unset("avatarError")
+                .set("updatedAt", new Date()),
+            User.class
+        );
+
+        if (previous != null) {
+            release(previous);
+        }
+    }
+
+    @Override
+    public void release(User removedUser) {
+        for (String path : pathsOf(removedUser)) {
+            try {
+                fileStorageService.release(path);
+            } catch (IOException e) {
+                logger.warn("Failed to release the picture " + path, e);
+            }
+        }
+    }
+
+    private void process(String userId, Path stagedFile) {
+        Map<String, String> avatarSizes = new LinkedHashMap<>();
+
+        try {
+            BufferedImage image = decode(stagedFile);
+            boolean alpha = image.getColorModel().hasAlpha();
+
+            for (int size : sizes) {
+                byte[] thumbnail = encode(resize(image, size, alpha), alpha ? "png" : "jpg");
+
+                avatarSizes.put(String.valueOf(size), fileStorageService.storeFile(new ByteArrayInputStream(thumbnail), alpha ? "avatar.png" : "avatar.jpg"));
+            }
+
+            Query userQuery = query(where("_id").is(new ObjectId(userId)));
+            userQuery.fields().include("avatar").include("avatarSizes");
+
+            // The previous values are returned, so a concurrent upload is released by whichever finishes last
+            User previous = mongoTemplate.findAndModify(
+                userQuery,
+                new Update()
+                    .set("avatar", avatarSizes.get(String.valueOf(sizes[sizes.length - 1])))
+                    .set("avatarSizes", avatarSizes)
+                    .set("avatarStatus", AvatarStatus.READY)
+                    .unset("avatarError")
+                    .set("updatedAt", new Date()),
+                User.class
+            );
+
+            List<String> released = previous != null ? pathsOf(previous) : new ArrayList<>(avatarSizes.values());
+            for (String path : released) {
+                fileStorageService.release(path);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to process the picture of the user " + userId, e);
+
+            // The messages of the decoding errors are meant for the user, the others may expose the internals
+            updateStatus(userId, AvatarStatus.FAILED, e instanceof IOException ? e.getMessage() : AVATAR_PROCESSING_FAILED_MESSAGE);
+
+            avatarSizes.values().forEach(path -> {
+                try {
+                    fileStorageService.release(path);
+                } catch (IOException releaseException) {
+                    logger.warn("Failed to release the picture " + path, releaseException);
+                }
+            });
+        } finally {
+            fileStorageService.deleteStaged(stagedFile);
+        }
+    }
+
+    private void updateStatus(String userId, AvatarStatus status, String error) {
+        Update update = new Update().set("avatarStatus", status).set("updatedAt", new Date());
+
+        if (error != null) {
+            update.set("avatarError", error);
+        } else {
+            update.unset("avatarError");
+        }
+
+        try {
+            mongoTemplate.updateFirst(query(where("_id").is(new ObjectId(userId))), update, User.class);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to update the picture status of the user " + userId, e);
+        }
+    }
+
+    private BufferedImage decode(Path stagedFile) throws IOException {
+        try (ImageInputStream inputStream = ImageIO.createImageInputStream(stagedFile.toFile())) {
+            Iterator<ImageReader> readers = inputStream != null ? ImageIO.getImageReaders(inputStream) : null;
+
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("The picture format isn't supported");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(inputStream, true, true);
+
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new IOException("The picture has " + pixels + " pixels, the maximum is " + maxPixels);
+                }
+
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Crops the center square of the picture and scales it to the size.
+     */
+    private static BufferedImage resize(BufferedImage image, int size, boolean alpha) {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        int x = (image.getWidth() - side) / 2;
+        int y = (image.getHeight() - side) / 2;
+
+        BufferedImage resized = new BufferedImage(size, size, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, size, size, x, y, x + side, y + side, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        return resized;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        if (!ImageIO.write(image, format, outputStream)) {
+            throw new IOException("No writer for the format " + format);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * One entry per reference held by the user: each thumbnail, and the picture itself when it isn't one of them.
+     */
+    private static List<String> pathsOf(User user) {
+        List<String> paths = new ArrayList<>();
+
+        if (user.getAvatarSizes() != null) {
+            paths.addAll(user.getAvatarSizes().values());
+        }
+        if (user.getAvatar() != null && !paths.contains(user.getAvatar())) {
+            paths.add(user.getAvatar());
+        }
+
+        return paths;
+    }
+}
@@ -0,0 +1,253 @@
+package com.tericcabrel.authorization.services;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.tericcabrel.authorization.models.entities.BootstrapLease;
+import com.tericcabrel.authorization.services.interfaces.BootstrapLockService;
+import jakarta.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Leases stored in Mongo, one document per task. A node acquires a free or expired lease with a single
+ * find-and-modify which increases the fencing token, renews it while the task runs, and writes the completion marker
+ * only if it still holds the token. A node which stops renewing loses the lease after its duration, and a waiting node
+ * takes the task over.
+ * <p>
+ * The token fences the lease itself and the task states written with it. The other writes of a task are not
+ * conditioned on it, Mongo has no way to do so for an index build or a bulk write outside a transaction: a task checks
+ * its lease between phases instead, so a node paused past its lease may still complete the phase it was in.
+ * <p>
+ * The expiry is compared with the clock of each node, so the lease duration must be well above their drift.
+ */
+@Service
+public class BootstrapLockServiceImpl implements BootstrapLockService {
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final MongoTemplate mongoTemplate;
+
+    private final boolean enabled;
+
+    private final long leaseMillis;
+
+    private final long waitMillis;
+
+    private final long pollMillis;
+
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    private final ScheduledExecutorService heartbeat;
+
+    public BootstrapLockServiceImpl(MongoTemplate mongoTemplate, Environment environment) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = environment.getProperty("app.bootstrap.lock.enabled", Boolean.class, true);
+        this.leaseMillis = environment.getProperty("app.bootstrap.lock.lease-ms", Long.class, 30_000L);
+        this.waitMillis = environment.getProperty("app.bootstrap.lock.wait-ms", Long.class, 120_000L);
+        this.pollMillis = environment.getProperty("app.bootstrap.lock.poll-ms", Long.class, 500L);
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("bootstrap-lease-");
+        threadFactory.setDaemon(true);
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @Override
+    public boolean runOnce(String task, String version, LeasedRunnable runnable) throws Exception {
+        if (!enabled) {
+            runnable.run(LocalLease.INSTANCE);
+
+            return true;
+        }
+
+        long deadline = System.currentTimeMillis() + waitMillis;
+
+        while (true) {
+            BootstrapLease current = mongoTemplate.findById(task, BootstrapLease.class);
+
+            if (current != null && version.equals(current.getCompletedVersion())) {
+                return false;
+            }
+
+            HeldLease lease = tryAcquire(task, version);
+
+            if (lease != null) {
+                run(lease, version, held -> {
+                    runnable.run(held);
+
+                    return null;
+                });
+
+                return true;
+            }
+
+            if (System.currentTimeMillis() > deadline) {
+                logger.warn("Gave up waiting for the task " + task + " run by " + (current != null ? current.getOwner() : "another node"));
+
+                return false;
+            }
+
+            Thread.sleep(pollMillis);
+        }
+    }
+
+    @Override
+    public <T> T runExclusive(String task, LeasedCallable<T> callable) throws Exception {
+        if (!enabled) {
+            return callable.call(LocalLease.INSTANCE);
+        }
+
+        long deadline = System.currentTimeMillis() + waitMillis;
+
+        while (true) {
+            HeldLease lease = tryAcquire(task, null);
+
+            if (lease != null) {
+                return run(lease, null, callable);
+            }
+
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("The task " + task + " is still running on another node");
+            }
+
+            Thread.sleep(pollMillis);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+    }
+
+    private HeldLease tryAcquire(String task, String version) {
+        Date now = new Date();
+        Criteria criteria = where("_id").is(task);
+
+        if (version != null) {
+            criteria = criteria.and("completedVersion").ne(version);
+        }
+
+        criteria.orOperator(where("leaseUntil").exists(false), where("leaseUntil").lt(now));
+
+        try {
+            // When the lease is held, the upsert collides with the existing document instead of matching it
+            BootstrapLease lease = mongoTemplate.findAndModify(
+                query(criteria),
+                new Update()
+                    .set("owner", owner)
+                    .set("leaseUntil", new Date(now.getTime() + leaseMillis))
+                    .inc("fencingToken", 1),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                BootstrapLease.class
+            );
+
+            return lease != null ? new HeldLease(task, lease.getFencingToken()) : null;
+        } catch (DuplicateKeyException e) {
+            return null;
+        }
+    }
+
+    private <T> T run(HeldLease lease, String version, LeasedCallable<T> callable) throws Exception {
+        long renewEvery = Math.max(1, leaseMillis / 3);
+        ScheduledFuture<?> renewal = heartbeat.scheduleAtFixedRate(lease::renew, renewEvery, renewEvery, TimeUnit.MILLISECONDS);
+        T result;
+
+        try {
+            result = callable.call(lease);
+        } catch (Exception e) {
+            renewal.cancel(false);
+            mongoTemplate.updateFirst(lease.query(), new Update().unset("owner").unset("leaseUntil"), BootstrapLease.class);
+
+            throw e;
+        }
+
+        renewal.cancel(false);
+
+        Update release = new Update().unset("owner").unset("leaseUntil");
+        if (version != null) {
+            release.set("completedVersion", version).set("completedAt", new Date());
+        }
+
+        if (mongoTemplate.updateFirst(lease.query(), release, BootstrapLease.class).getMatchedCount() == 0) {
+            logger.warn("The task " + lease.task + " completed after its lease was taken over by another node");
+        }
+
+        return result;
+    }
+
+    private class HeldLease implements Lease {
+        private final String task;
+
+        private final long fencingToken;
+
+        private volatile boolean lost;
+
+        HeldLease(String task, long fencingToken) {
+            this.task = task;
+            this.fencingToken = fencingToken;
+        }
+
+        @Override
+        public long fencingToken() {
+            return fencingToken;
+        }
+
+        @Override
+        public void check() {
+            if (lost || !mongoTemplate.exists(query(), BootstrapLease.class)) {
+                lost = true;
+
+                throw new IllegalStateException("The lease of the task " + task + " was taken over by another node");
+            }
+        }
+
+        Query query() {
+            return Query.query(where("_id").is(task).and("fencingToken").is(fencingToken));
+        }
+
+        void renew() {
+            try {
+                long matched = mongoTemplate.updateFirst(
+                    query(), new Update().set("leaseUntil", new Date(System.currentTimeMillis() + leaseMillis)), BootstrapLease.class
+                ).getMatchedCount();
+
+                if (matched == 0) {
+                    lost = true;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Failed to renew the lease of the task " + task, e);
+            }
+        }
+    }
+
+    /**
+     * The lease used when the coordination is disabled, which is never lost.
+     */
+    private enum LocalLease implements Lease {
+        INSTANCE;
+
+        @Override
+        public long fencingToken() {
+            return 0;
+        }
+
+        @Override
+        public void check() {
+        }
+    }
+}
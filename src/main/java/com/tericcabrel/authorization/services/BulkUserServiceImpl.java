@@ -0,0 +1,260 @@
+package com.tericcabrel.authorization.services;
+
+import static com.tericcabrel.authorization.utils.Constants.BULK_JOB_NOT_FOUND_MESSAGE;
+import static com.tericcabrel.authorization.utils.Constants.BULK_QUEUE_FULL_MESSAGE;
+import static com.tericcabrel.authorization.utils.Constants.ROLE_SUPER_ADMIN;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.tericcabrel.authorization.exceptions.ResourceNotFoundException;
+import com.tericcabrel.authorization.models.dtos.BulkUserOperationDto;
+import com.tericcabrel.authorization.models.dtos.UserFilterDto;
+import com.tericcabrel.authorization.models.entities.BulkUserJob;
+import com.tericcabrel.authorization.models.entities.Role;
+import com.tericcabrel.authorization.models.entities.User;
+import com.tericcabrel.authorization.models.entities.UserAccount;
+import com.tericcabrel.authorization.models.enums.BulkJobStatus;
+import com.tericcabrel.authorization.models.enums.BulkUserAction;
+import com.tericcabrel.authorization.repositories.BulkUserJobRepository;
+import com.tericcabrel.authorization.repositories.RefreshTokenRepository;
+import com.tericcabrel.authorization.services.interfaces.AvatarService;
+import com.tericcabrel.authorization.services.interfaces.BulkUserService;
+import com.tericcabrel.authorization.services.interfaces.EmailFilterService;
+import com.tericcabrel.authorization.services.interfaces.RoleService;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+@Service
+public class BulkUserServiceImpl implements BulkUserService {
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    @Value("${app.bulk.batch-size:500}")
+    private int batchSize;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final BulkUserJobRepository bulkUserJobRepository;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final RoleService roleService;
+
+    private final TaskExecutor bulkTaskExecutor;
+
+    private final EmailFilterService emailFilterService;
+
+    private final AvatarService avatarService;
+
+    public BulkUserServiceImpl(
+        MongoTemplate mongoTemplate,
+        BulkUserJobRepository bulkUserJobRepository,
+        RefreshTokenRepository refreshTokenRepository,
+        RoleService roleService,
+        @Qualifier("bulkTaskExecutor") TaskExecutor bulkTaskExecutor,
+        EmailFilterService emailFilterService,
+        AvatarService avatarService
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.bulkUserJobRepository = bulkUserJobRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.roleService = roleService;
+        this.bulkTaskExecutor = bulkTaskExecutor;
+        this.emailFilterService = emailFilterService;
+        this.avatarService = avatarService;
+    }
+
+    @Override
+    public BulkUserJob submit(BulkUserOperationDto bulkUserOperationDto, String requestedBy) throws ResourceNotFoundException {
+        BulkUserAction action = bulkUserOperationDto.getAction();
+        Role targetRole = action == BulkUserAction.CHANGE_ROLE ? roleService.findByName(bulkUserOperationDto.getRoleName()) : null;
+        Criteria criteria = buildCriteria(bulkUserOperationDto);
+
+        BulkUserJob job = new BulkUserJob()
+            .setAction(action)
+            .setStatus(BulkJobStatus.PENDING)
+            .setRequestedBy(requestedBy)
+            .setTotal(mongoTemplate.count(query(criteria), User.class));
+
+        BulkUserJob jobCreated = bulkUserJobRepository.save(job);
+
+        try {
+            bulkTaskExecutor.execute(() -> run(jobCreated, criteria, targetRole));
+        } catch (TaskRejectedException e) {
+            logger.warn("Bulk user job " + jobCreated.getId() + " rejected: " + BULK_QUEUE_FULL_MESSAGE);
+
+            jobCreated.setStatus(BulkJobStatus.FAILED)
+                .setError(BULK_QUEUE_FULL_MESSAGE)
+                .setFinishedAt(new Date());
+
+            return bulkUserJobRepository.save(jobCreated);
+        }
+
+        return jobCreated;
+    }
+
+    @Override
+    public BulkUserJob findJob(String id) throws ResourceNotFoundException {
+        Optional<BulkUserJob> jobOptional = ObjectId.isValid(id) ? bulkUserJobRepository.findById(new ObjectId(id)) : Optional.empty();
+
+        if (jobOptional.isEmpty()) {
+            throw new ResourceNotFoundException(BULK_JOB_NOT_FOUND_MESSAGE);
+        }
+
+        return jobOptional.get();
+    }
+
+    /**
+     * Walks through the matching users in batches ordered by id, so each batch is one {@code updateMany} or
+     * {@code deleteMany} and the job document reflects the progress after every batch.
+     */
+    private void run(BulkUserJob job, Criteria criteria, Role targetRole) {
+        job.setStatus(BulkJobStatus.RUNNING).setStartedAt(new Date());
+        bulkUserJobRepository.save(job);
+
+        try {
+            ObjectId lastId = null;
+            List<ObjectId> ids;
+
+            while (!(ids = nextBatch(criteria, lastId)).isEmpty()) {
+                long affected = apply(job.getAction(), ids, targetRole);
+
+                if (job.getAction().revokesTokens()) {
+                    refreshTokenRepository.deleteAllById(ids.stream().map(ObjectId::toHexString).toList());
+                }
+
+                lastId = ids.get(ids.size() - 1);
+
+                job.setProcessed(job.getProcessed() + ids.size())
+                    .setAffected(job.getAffected() + affected);
+                bulkUserJobRepository.save(job);
+            }
+
+            job.setStatus(BulkJobStatus.COMPLETED);
+        } catch (RuntimeException e) {
+            logger.error("Bulk user job " + job.getId() + " failed", e);
+
+            job.setStatus(BulkJobStatus.FAILED).setError(e.getMessage());
+        }
+
+        job.setFinishedAt(new Date());
+        bulkUserJobRepository.save(job);
+    }
+
+    private List<ObjectId> nextBatch(Criteria criteria, ObjectId lastId) {
+        Criteria batchCriteria = lastId == null ? criteria : new Criteria().andOperator(criteria, where("_id").gt(lastId));
+
+        Query query = query(batchCriteria).with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+        query.fields().include("_id");
+
+        return mongoTemplate.find(query, User.class).stream()
+            .map(user -> new ObjectId(user.getId()))
+            .toList();
+    }
+
+    private long apply(BulkUserAction action, List<ObjectId> ids, Role targetRole) {
+        Query byIds = query(where("_id").in(ids));
+
+        switch (action) {
+            case ENABLE:
+                return mongoTemplate.updateMulti(byIds, touch().set("enabled", true), User.class).getModifiedCount();
+            case DISABLE:
+                return mongoTemplate.updateMulti(byIds, touch().set("enabled", false), User.class).getModifiedCount();
+            case CHANGE_ROLE:
+                return mongoTemplate.updateMulti(byIds, touch().set("role", targetRole), User.class).getModifiedCount();
+            case DELETE:
+                mongoTemplate.remove(query(where("user.$id").in(ids)), UserAccount.class);
+
+                long deleted = deleteUsers(ids);
+                emailFilterService.markRemoved(deleted);
+
+                return deleted;
+            default:
+                throw new IllegalArgumentException("Unsupported bulk action: " + action);
+        }
+    }
+
+    /**
+     * The users without picture are removed at once. The others are removed one by one, so each picture is released
+     * by the removal which returned it, and only once even when a user is deleted concurrently.
+     */
+    private long deleteUsers(List<ObjectId> ids) {
+        Query withPictureQuery = query(
+            where("_id").in(ids).orOperator(where("avatar").ne(null), where("avatarSizes").ne(null))
+        );
+        withPictureQuery.fields().include("_id");
+
+        List<ObjectId> withPictureIds = mongoTemplate.find(withPictureQuery, User.class).stream()
+            .map(user -> new ObjectId(user.getId()))
+            .toList();
+
+        long deleted = mongoTemplate.remove(
+            query(where("_id").in(ids).and("avatar").is(null).and("avatarSizes").is(null)), User.class
+        ).getDeletedCount();
+
+        for (ObjectId id : withPictureIds) {
+            Query userQuery = query(where("_id").is(id));
+            userQuery.fields().include("avatar").include("avatarSizes");
+
+            User removedUser = mongoTemplate.findAndRemove(userQuery, User.class);
+
+            if (removedUser != null) {
+                deleted++;
+                avatarService.release(removedUser);
+            }
+        }
+
+        return deleted;
+    }
+
+    private Update touch() {
+        return new Update().set("updatedAt", new Date());
+    }
+
+    private Criteria buildCriteria(BulkUserOperationDto bulkUserOperationDto) throws ResourceNotFoundException {
+        List<Criteria> criteriaList = new ArrayList<>();
+
+        // The super admin account must never be disabled, deleted or downgraded by a bulk operation
+        Role superAdminRole = roleService.findByName(ROLE_SUPER_ADMIN);
+        criteriaList.add(where("role.$id").ne(new ObjectId(superAdminRole.getId())));
+
+        List<String> ids = bulkUserOperationDto.getIds();
+
+        UserFilterDto filter = bulkUserOperationDto.getFilter();
+
+        if (ids != null && !ids.isEmpty()) {
+            criteriaList.add(where("_id").in(ids.stream().filter(ObjectId::isValid).map(ObjectId::new).toList()));
+        } else if (filter != null) {
+            if (filter.getRole() != null) {
+                Role role = roleService.findByName(filter.getRole());
+                criteriaList.add(where("role.$id").is(new ObjectId(role.getId())));
+            }
+            if (filter.getEnabled() != null) {
+                criteriaList.add(where("enabled").is(filter.getEnabled()));
+            }
+            if (filter.getConfirmed() != null) {
+                criteriaList.add(where("confirmed").is(filter.getConfirmed()));
+            }
+            if (filter.getEmailDomain() != null && !filter.getEmailDomain().isBlank()) {
+                criteriaList.add(where("email").regex("@" + Pattern.quote(filter.getEmailDomain().trim()) + "$", "i"));
+            }
+        }
+
+        return new Criteria().andOperator(criteriaList);
+    }
+}
@@ -0,0 +1,186 @@
+package com.tericcabrel.authorization.services;
+
+import com.tericcabrel.authorization.models.entities.User;
+import com.tericcabrel.authorization.services.interfaces.EmailFilterService;
+import com.tericcabrel.authorization.utils.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.Document;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps a Bloom filter of the emails of all the users, so checking a new email during a registration doesn't query
+ * the database when the filter is sure it is absent. The filter is built from a stream of the emails only, sized from
+ * the number of users, and rebuilt periodically or once too many users were deleted or the filter got too full. Until
+ * the first build completes, every email is reported as possibly present.
+ */
+@Service
+public class EmailFilterServiceImpl implements EmailFilterService {
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final MongoTemplate mongoTemplate;
+
+    private final boolean enabled;
+
+    private final double targetFpp;
+
+    private final long minCapacity;
+
+    private final double growthFactor;
+
+    private final long rebuildIntervalMillis;
+
+    private final double maxRemovedRatio;
+
+    private final AtomicLong removedCount = new AtomicLong();
+
+    private final Counter absentCounter;
+
+    private final Counter maybeCounter;
+
+    private final Counter falsePositiveCounter;
+
+    private volatile BloomFilter filter;
+
+    private volatile BloomFilter building;
+
+    private volatile long builtAt;
+
+    public EmailFilterServiceImpl(MongoTemplate mongoTemplate, Environment environment, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = environment.getProperty("app.email-filter.enabled", Boolean.class, true);
+        this.targetFpp = environment.getProperty("app.email-filter.fpp", Double.class, 0.01);
+        this.minCapacity = environment.getProperty("app.email-filter.min-capacity", Long.class, 100_000L);
+        this.growthFactor = environment.getProperty("app.email-filter.growth-factor", Double.class, 2.0);
+        this.rebuildIntervalMillis = environment.getProperty("app.email-filter.rebuild-interval-ms", Long.class, 3_600_000L);
+        this.maxRemovedRatio = environment.getProperty("app.email-filter.max-removed-ratio", Double.class, 0.05);
+
+        Gauge.builder("auth.email.filter.fpp.expected", this, service -> service.filter == null ? 1 : service.filter.expectedFpp())
+            .description("False positive probability of the email filter, estimated from the bits set")
+            .register(meterRegistry);
+        Gauge.builder("auth.email.filter.elements", this, service -> service.filter == null ? 0 : service.filter.approximateElementCount())
+            .description("Number of emails in the email filter")
+            .register(meterRegistry);
+
+        this.absentCounter = lookupCounter(meterRegistry, "absent");
+        this.maybeCounter = lookupCounter(meterRegistry, "maybe");
+        this.falsePositiveCounter = Counter.builder("auth.email.filter.false-positives")
+            .description("Emails reported as present by the filter but not found in the database")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public boolean mightExist(String email) {
+        BloomFilter current = filter;
+
+        if (current == null || email == null) {
+            return true;
+        }
+
+        boolean mightExist = current.mightContain(normalize(email));
+        (mightExist ? maybeCounter : absentCounter).increment();
+
+        return mightExist;
+    }
+
+    @Override
+    public void add(String email) {
+        if (email == null) {
+            return;
+        }
+
+        String normalized = normalize(email);
+        BloomFilter current = filter;
+        BloomFilter next = building;
+
+        if (current != null) {
+            current.put(normalized);
+        }
+        // A rebuild in progress may have read the users before this one was saved
+        if (next != null) {
+            next.put(normalized);
+        }
+    }
+
+    @Override
+    public void markRemoved(long count) {
+        removedCount.addAndGet(count);
+    }
+
+    @Override
+    public void recordFalsePositive() {
+        falsePositiveCounter.increment();
+    }
+
+    @Scheduled(
+        initialDelayString = "${app.email-filter.initial-delay-ms:0}",
+        fixedDelayString = "${app.email-filter.check-interval-ms:60000}"
+    )
+    public void rebuildIfNeeded() {
+        if (!enabled) {
+            return;
+        }
+
+        BloomFilter current = filter;
+
+        boolean stale = current == null
+            || System.currentTimeMillis() - builtAt >= rebuildIntervalMillis
+            || current.expectedFpp() > targetFpp * 2
+            || removedCount.get() > current.approximateElementCount() * maxRemovedRatio;
+
+        if (stale) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        long expectedInsertions = Math.max(minCapacity, (long) (mongoTemplate.estimatedCount(User.class) * growthFactor));
+        BloomFilter next = BloomFilter.create(expectedInsertions, targetFpp);
+
+        building = next;
+        removedCount.set(0);
+
+        Query query = new Query();
+        query.fields().include("email").exclude("_id");
+        query.cursorBatchSize(1000);
+
+        try (Stream<Document> emails = mongoTemplate.stream(query, Document.class, mongoTemplate.getCollectionName(User.class))) {
+            emails.map(document -> document.getString("email"))
+                .filter(email -> email != null)
+                .forEach(email -> next.put(normalize(email)));
+
+            filter = next;
+            builtAt = System.currentTimeMillis();
+
+            logger.info("Email filter built with " + next.approximateElementCount() + " emails in "
+                + (builtAt - startedAt) + " ms, expected false positive rate " + next.expectedFpp());
+        } catch (RuntimeException e) {
+            // The previous filter stays in use, the next check tries again
+            logger.warn("Failed to build the email filter", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("auth.email.filter.lookups")
+            .description("Email lookups answered by the email filter")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
@@ -1,78 +1,314 @@
 package com.tericcabrel.authorization.services;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import com.tericcabrel.authorization.models.entities.AvatarBlob;
+import com.tericcabrel.authorization.services.interfaces.FileStorage;
+import com.tericcabrel.authorization.services.interfaces.FileStorageService;
 import com.tericcabrel.authorization.utils.Helpers;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.tericcabrel.authorization.exceptions.FileNotFoundException;
 import com.tericcabrel.authorization.exceptions.FileStorageException;
 
+/**
+ * Stores the avatars by content: the file is named by the SHA-256 computed while it is copied, and placed in two
+ * levels of directories named by the first characters of the hash, so no directory grows too large. Users uploading
+ * the same image share the file, counted in {@link AvatarBlob}. A file no user references anymore is deleted by
+ * {@link #collectGarbage()} after a grace period.
+ * <p>
+ * The uploads are hashed in a local staging directory, then placed in the {@link FileStorage} configured, which may be
+ * shared by several replicas. The garbage collection marks the record as being deleted before deleting the file, and
+ * an upload never references a marked record: it waits for the record to be removed, then creates a new one and
+ * places the file again. So a file is never deleted while a user references it, whichever replica deletes it.
+ */
 @Service
-public class FileStorageServiceImpl {
+public class FileStorageServiceImpl implements FileStorageService {
+    private static final Pattern BLOB_PATH = Pattern.compile("^[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64})(\\.[a-z0-9]{1,10})?$");
+
+    private static final Pattern EXTENSION = Pattern.compile("^[a-z0-9]{1,10}$");
+
+    private static final long DELETION_WAIT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private static final long DELETION_POLL_MILLIS = 50;
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final Path stagingLocation;
+
+    private final FileStorage fileStorage;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final long gcGraceMillis;
 
-    private final Path fileStorageLocation;
+    private final long gcDeletionTimeoutMillis;
 
     @Autowired
-    public FileStorageServiceImpl(Environment env) {
-        this.fileStorageLocation = Paths.get(env.getProperty("app.file.upload-dir", "./uploads/avatars"))
+    public FileStorageServiceImpl(Environment env, MongoTemplate mongoTemplate, FileStorage fileStorage) {
+        this.mongoTemplate = mongoTemplate;
+        this.fileStorage = fileStorage;
+        this.gcGraceMillis = env.getProperty("app.file.gc.grace-ms", Long.class, 3_600_000L);
+        this.gcDeletionTimeoutMillis = env.getProperty("app.file.gc.deletion-timeout-ms", Long.class, 600_000L);
+
+        String stagingDir = env.getProperty("app.file.staging-dir");
+        this.stagingLocation = (stagingDir != null
+                ? Paths.get(stagingDir)
+                : Paths.get(env.getProperty("app.file.upload-dir", "./uploads/avatars")).resolve(".staging"))
                 .toAbsolutePath().normalize();
 
         try {
-            Files.createDirectories(this.fileStorageLocation);
+            Files.createDirectories(this.stagingLocation);
         } catch (Exception ex) {
             throw new FileStorageException("Could not create the directory where the uploaded files will be stored.", ex);
         }
     }
 
-    public String storeFile(MultipartFile file) {
-        // Normalize file name
-        String fileName = new Date().getTime() + "-user." + Helpers.getFileExtension(file.getOriginalFilename());
+    @Override
+    public Path stage(MultipartFile file) {
+        try {
+            Path stagedFile = Files.createTempFile(stagingLocation, "upload-", ".tmp");
+
+            try (InputStream inputStream = file.getInputStream()) {
+                Files.copy(inputStream, stagedFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            return stagedFile;
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not store file " + file.getOriginalFilename() + ". Please try again!", ex);
+        }
+    }
+
+    @Override
+    public void deleteStaged(Path stagedFile) {
+        deleteQuietly(stagedFile);
+    }
+
+    /**
+     * @return the sharded path of the content, relative to the root of the storage
+     */
+    @Override
+    public String storeFile(InputStream inputStream, String fileName) {
+        String extension = extensionOf(fileName);
+        Path stagedFile = null;
 
         try {
-            // Check if the file's name contains invalid characters
-            if (fileName.contains("..")) {
-                throw new FileStorageException("Sorry! Filename contains invalid path sequence " + fileName);
+            stagedFile = Files.createTempFile(stagingLocation, "upload-", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size;
+
+            try (InputStream source = inputStream;
+                 OutputStream outputStream = new DigestOutputStream(Files.newOutputStream(stagedFile), digest)) {
+                size = source.transferTo(outputStream);
             }
 
-            // Copy file to the target location (Replacing existing file with the same name)
-            Path targetLocation = this.fileStorageLocation.resolve(fileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String path = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + extension;
 
-            return fileName;
-        } catch (IOException ex) {
+            AvatarBlob previous = reference(hash, path, size);
+
+            // The same content uploaded with another extension keeps the path of the first upload
+            String blobPath = previous != null ? previous.getPath() : path;
+
+            try {
+                // A new record may follow a deleted one, and an existing one may still be waiting for its first upload
+                if (previous == null || !fileStorage.exists(blobPath)) {
+                    fileStorage.put(blobPath, stagedFile, contentTypeOf(blobPath));
+                }
+            } catch (IOException | RuntimeException e) {
+                // The caller never gets the path to release, so the reference is dropped here
+                unreference(hash);
+
+                throw e;
+            }
+
+            return blobPath;
+        } catch (IOException | NoSuchAlgorithmException ex) {
             throw new FileStorageException("Could not store file " + fileName + ". Please try again!", ex);
+        } finally {
+            deleteQuietly(stagedFile);
         }
     }
 
-    public Resource loadFileAsResource(String fileName) {
-        try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-            if (resource.exists()) {
-                return resource;
-            } else {
-                throw new FileNotFoundException("File not found " + fileName);
+    /**
+     * The file is deleted by the garbage collection once no user references it. A file stored before the content
+     * addressing is deleted right away, as it was never shared.
+     */
+    @Override
+    public void release(String fileName) throws IOException {
+        String hash = contentHashOf(fileName);
+
+        if (hash == null) {
+            fileStorage.delete(fileName);
+            return;
+        }
+
+        unreference(hash);
+    }
+
+    @Override
+    public URI urlOf(String fileName) {
+        return fileStorage.urlOf(fileName);
+    }
+
+    /**
+     * Deletes the files released longer than the grace period ago. The record is first marked as being deleted, only
+     * if it is still unreferenced, then the file is deleted and the record removed. A deletion left unfinished, by a
+     * failure or a replica which stopped, is taken over once the deletion timeout has elapsed.
+     */
+    @Scheduled(fixedDelayString = "${app.file.gc.interval-ms:600000}", initialDelayString = "${app.file.gc.interval-ms:600000}")
+    public void collectGarbage() {
+        long now = System.currentTimeMillis();
+        Date releasedBefore = new Date(now - gcGraceMillis);
+
+        Query releasedQuery = query(
+            where("refCount").lte(0).orOperator(
+                where("deletingAt").exists(false).and("releasedAt").lt(releasedBefore),
+                where("deletingAt").lt(new Date(now - gcDeletionTimeoutMillis))
+            )
+        ).limit(500);
+
+        for (AvatarBlob blob : mongoTemplate.find(releasedQuery, AvatarBlob.class)) {
+            Criteria claim = where("hash").is(blob.getHash()).and("refCount").lte(0);
+            claim = blob.getDeletingAt() == null
+                ? claim.and("deletingAt").exists(false).and("releasedAt").lt(releasedBefore)
+                : claim.and("deletingAt").is(blob.getDeletingAt());
+
+            Date deletingAt = new Date();
+
+            if (mongoTemplate.updateFirst(query(claim), new Update().set("deletingAt", deletingAt), AvatarBlob.class).getModifiedCount() == 0) {
+                // Referenced again, or claimed by another replica
+                continue;
+            }
+
+            try {
+                fileStorage.delete(blob.getPath());
+
+                mongoTemplate.remove(query(where("hash").is(blob.getHash()).and("deletingAt").is(deletingAt)), AvatarBlob.class);
+            } catch (IOException e) {
+                logger.warn("Failed to delete the avatar file " + blob.getPath(), e);
             }
-        } catch (MalformedURLException ex) {
-            throw new FileNotFoundException("File not found " + fileName, ex);
         }
     }
 
-    public boolean deleteFile(String filePath) throws IOException {
-        Resource resource = this.loadFileAsResource(filePath);
+    /**
+     * Counts a reference to the content, creating its record if needed. A record being deleted is never referenced:
+     * the unique hash makes the insert fail until the garbage collection has removed it.
+     *
+     * @return the record before the reference, null when it was created
+     */
+    private AvatarBlob reference(String hash, String path, long size) throws IOException {
+        long deadline = System.nanoTime() + DELETION_WAIT_NANOS;
+
+        while (true) {
+            try {
+                return mongoTemplate.findAndModify(
+                    query(where("hash").is(hash).and("deletingAt").exists(false)),
+                    new Update().inc("refCount", 1)
+                        .unset("releasedAt")
+                        .setOnInsert("path", path)
+                        .setOnInsert("size", size)
+                        .setOnInsert("createdAt", new Date()),
+                    FindAndModifyOptions.options().upsert(true).returnNew(false),
+                    AvatarBlob.class
+                );
+            } catch (DuplicateKeyException e) {
+                if (System.nanoTime() > deadline) {
+                    throw new IOException("The file " + path + " is being deleted", e);
+                }
+
+                try {
+                    TimeUnit.MILLISECONDS.sleep(DELETION_POLL_MILLIS);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+
+                    throw new IOException("Interrupted while the file " + path + " is being deleted", interruptedException);
+                }
+            }
+        }
+    }
+
+    private void unreference(String hash) {
+        mongoTemplate.updateFirst(query(where("hash").is(hash).and("refCount").gt(0)), new Update().inc("refCount", -1), AvatarBlob.class);
+        mongoTemplate.updateFirst(
+            query(where("hash").is(hash).and("refCount").lte(0).and("releasedAt").exists(false)),
+            new Update().set("releasedAt", new Date()),
+            AvatarBlob.class
+        );
+    }
 
-        return Files.deleteIfExists(resource.getFile().toPath());
+    /**
+     * @return the content hash in the name of a content-addressed file, null for a file stored before
+     */
+    public static String contentHashOf(String path) {
+        Matcher matcher = BLOB_PATH.matcher(path);
+
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    private static String extensionOf(String originalFilename) {
+        String extension = Helpers.getFileExtension(originalFilename);
+
+        if (extension == null || originalFilename.indexOf('.') < 0) {
+            return "";
+        }
+
+        extension = extension.toLowerCase(Locale.ROOT);
+
+        return EXTENSION.matcher(extension).matches() ? "." + extension : "";
+    }
+
+    private static String contentTypeOf(String path) {
+        String extension = Helpers.getFileExtension(path);
+
+        return switch (extension == null ? "" : extension) {
+            case "png" -> "image/png";
+            case "jpg", "jpeg" -> "image/jpeg";
+            case "gif" -> "image/gif";
+            case "webp" -> "image/webp";
+            default -> "application/octet-stream";
+        };
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete the staged upload " + path, e);
+        }
     }
-}
\ No newline at end of file
+}
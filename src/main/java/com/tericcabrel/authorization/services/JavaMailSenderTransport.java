@@ -0,0 +1,35 @@
+package com.tericcabrel.authorization.services;
+
+import com.tericcabrel.authorization.services.interfaces.MailTransport;
+import com.tericcabrel.authorization.utils.DomainRateLimiter;
+import jakarta.mail.internet.MimeMessage;
+import java.util.List;
+import java.util.function.BiConsumer;
+import org.springframework.mail.javamail.JavaMailSender;
+
+/**
+ * Sends each message with its own connection through the {@link JavaMailSender}, when the pool is disabled.
+ */
+public class JavaMailSenderTransport implements MailTransport {
+    private final JavaMailSender mailSender;
+
+    private final DomainRateLimiter domainRateLimiter;
+
+    public JavaMailSenderTransport(JavaMailSender mailSender, DomainRateLimiter domainRateLimiter) {
+        this.mailSender = mailSender;
+        this.domainRateLimiter = domainRateLimiter;
+    }
+
+    @Override
+    public void send(String domain, List<MimeMessage> messages, BiConsumer<MimeMessage, Exception> callback) {
+        for (MimeMessage message : messages) {
+            try {
+                domainRateLimiter.acquire(domain);
+                mailSender.send(message);
+                callback.accept(message, null);
+            } catch (Exception e) {
+                callback.accept(message, e);
+            }
+        }
+    }
+}
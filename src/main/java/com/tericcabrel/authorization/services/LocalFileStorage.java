@@ -0,0 +1,69 @@
+package com.tericcabrel.authorization.services;
+
+import com.tericcabrel.authorization.exceptions.FileNotFoundException;
+import com.tericcabrel.authorization.services.interfaces.FileStorage;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Keeps the files in a directory of the local disk, served by the avatar servlet. Replicas can only share the files
+ * if the directory is on a shared mount.
+ */
+public class LocalFileStorage implements FileStorage {
+    private final Path root;
+
+    private final String urlPrefix;
+
+    public LocalFileStorage(Path root, String urlPrefix) {
+        this.root = root;
+        this.urlPrefix = urlPrefix;
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        Path target = resolve(key);
+
+        if (Files.exists(target)) {
+            Files.deleteIfExists(source);
+            return;
+        }
+
+        Files.createDirectories(target.getParent());
+
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Another instance sharing the directory placed the same content meanwhile
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public URI urlOf(String key) {
+        return URI.create(urlPrefix + key);
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new FileNotFoundException("File not found " + key);
+        }
+
+        return path;
+    }
+}
@@ -0,0 +1,162 @@
+package com.tericcabrel.authorization.services;
+
+import static com.tericcabrel.authorization.utils.Constants.ACCOUNT_DEACTIVATED_MESSAGE;
+import static com.tericcabrel.authorization.utils.Constants.ACCOUNT_NOT_CONFIRMED_MESSAGE;
+import static com.tericcabrel.authorization.utils.Constants.BAD_CREDENTIALS_MESSAGE;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.tericcabrel.authorization.models.dtos.LoginUserDto;
+import com.tericcabrel.authorization.models.entities.RefreshToken;
+import com.tericcabrel.authorization.models.entities.User;
+import com.tericcabrel.authorization.models.response.AuthTokenResponse;
+import com.tericcabrel.authorization.models.response.LoginResult;
+import com.tericcabrel.authorization.repositories.RefreshTokenRepository;
+import com.tericcabrel.authorization.services.interfaces.LoginService;
+import com.tericcabrel.authorization.services.interfaces.PasswordHashingService;
+import com.tericcabrel.authorization.services.interfaces.UserService;
+import com.tericcabrel.authorization.utils.Helpers;
+import com.tericcabrel.authorization.utils.JwtTokenUtil;
+import com.tericcabrel.authorization.utils.PhaseTimings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Logs a user in with a single read of the user document: the password, the account status and the token are all
+ * derived from it, without going through the {@code UserDetailsService}. The role and the permissions are not needed
+ * here, so they are left out of the read and no DBRef is resolved.
+ */
+@Service
+public class LoginServiceImpl implements LoginService {
+    private static final String[] PHASES = { "lookup", "verify", "persist", "token" };
+
+    private final MongoTemplate mongoTemplate;
+
+    private final PasswordHashingService passwordHashingService;
+
+    private final UserService userService;
+
+    private final JwtTokenUtil jwtTokenUtil;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final TaskExecutor loginTaskExecutor;
+
+    /**
+     * Registered once, so the login doesn't look the meters up in the registry for every phase.
+     */
+    private final Map<String, Timer> phaseTimers;
+
+    /**
+     * Compared with the password when the email is unknown, so an unknown email takes as long as a wrong password.
+     */
+    private final String dummyPassword;
+
+    public LoginServiceImpl(
+        MongoTemplate mongoTemplate,
+        PasswordHashingService passwordHashingService,
+        PasswordEncoder passwordEncoder,
+        UserService userService,
+        JwtTokenUtil jwtTokenUtil,
+        RefreshTokenRepository refreshTokenRepository,
+        @Qualifier("loginTaskExecutor") TaskExecutor loginTaskExecutor,
+        MeterRegistry meterRegistry
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.passwordHashingService = passwordHashingService;
+        this.userService = userService;
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.loginTaskExecutor = loginTaskExecutor;
+        this.phaseTimers = Stream.of(PHASES).collect(Collectors.toUnmodifiableMap(Function.identity(), phase ->
+            Timer.builder("auth.login.phase")
+                .description("Time spent in each phase of the login")
+                .tag("phase", phase)
+                .register(meterRegistry)
+        ));
+        this.dummyPassword = passwordEncoder.encode(Helpers.generateRandomString(16));
+    }
+
+    @Override
+    public CompletableFuture<LoginResult> login(LoginUserDto loginUserDto) {
+        PhaseTimings timings = new PhaseTimings();
+        User user = time(timings, "lookup", () -> findForLogin(loginUserDto.getEmail()));
+        long verifyStartedAt = System.nanoTime();
+
+        return passwordHashingService.matches(loginUserDto.getPassword(), user != null ? user.getPassword() : dummyPassword)
+            .thenCompose(matches -> {
+                record(timings, "verify", System.nanoTime() - verifyStartedAt);
+
+                if (user == null || !matches) {
+                    throw new BadCredentialsException(BAD_CREDENTIALS_MESSAGE);
+                }
+                if (!user.isEnabled()) {
+                    return CompletableFuture.completedFuture(LoginResult.failure(ACCOUNT_DEACTIVATED_MESSAGE, timings));
+                }
+                if (!user.isConfirmed()) {
+                    return CompletableFuture.completedFuture(LoginResult.failure(ACCOUNT_NOT_CONFIRMED_MESSAGE, timings));
+                }
+
+                userService.upgradePasswordHash(user, loginUserDto.getPassword());
+
+                return issueTokens(user, timings);
+            });
+    }
+
+    /**
+     * Writes the refresh token while the access token is signed, and completes once both are done so the client can
+     * use the refresh token as soon as it receives it.
+     */
+    private CompletableFuture<LoginResult> issueTokens(User user, PhaseTimings timings) {
+        String refreshToken = Helpers.generateRandomString(25);
+        long persistStartedAt = System.nanoTime();
+
+        CompletableFuture<Void> persisted = CompletableFuture.runAsync(() -> {
+            refreshTokenRepository.save(new RefreshToken(user.getId(), refreshToken));
+
+            record(timings, "persist", System.nanoTime() - persistStartedAt);
+        }, loginTaskExecutor);
+
+        String token = time(timings, "token", () -> jwtTokenUtil.createTokenFromUser(user));
+        long expiresIn = jwtTokenUtil.getExpirationDateFromToken(token).getTime();
+
+        return persisted.thenApply(ignored -> LoginResult.success(new AuthTokenResponse(token, refreshToken, expiresIn), timings));
+    }
+
+    private User findForLogin(String email) {
+        Query query = query(where("email").is(email));
+        query.fields().include("email", "password", "enabled", "confirmed");
+
+        return mongoTemplate.findOne(query, User.class);
+    }
+
+    private <T> T time(PhaseTimings timings, String phase, Supplier<T> supplier) {
+        long startedAt = System.nanoTime();
+
+        try {
+            return supplier.get();
+        } finally {
+            record(timings, phase, System.nanoTime() - startedAt);
+        }
+    }
+
+    private void record(PhaseTimings timings, String phase, long durationNanos) {
+        timings.record(phase, durationNanos);
+
+        phaseTimers.get(phase).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,137 @@
+package com.tericcabrel.authorization.services;
+
+import com.tericcabrel.authorization.models.entities.MailOutbox;
+import com.tericcabrel.authorization.models.enums.MailType;
+import com.tericcabrel.authorization.services.interfaces.MailComposer;
+import com.tericcabrel.authorization.utils.InlineAssetCache;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import java.io.UnsupportedEncodingException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.internet.MimeBodyPart;
+import java.util.Locale;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+@Service
+public class MailComposerImpl implements MailComposer {
+    private static final String REGISTRATION_TEMPLATE_NAME = "html/registration";
+    private static final String REGISTRATION_SUBJECT = "Registration Confirmation";
+    private static final String PASSWORD_RESET_TEMPLATE_NAME = "html/password-reset";
+    private static final String PASSWORD_RESET_SUBJECT = "Password Reset";
+    private static final String SPRING_LOGO_IMAGE_PATH = "templates/html/images/spring.png";
+    private static final String IMAGE_MIME_TYPE = "image/png";
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final Environment environment;
+    private final JavaMailSender mailSender;
+    private final ITemplateEngine templateEngine;
+    private final TaskExecutor mailTaskExecutor;
+    private final MeterRegistry meterRegistry;
+    private final InlineAssetCache inlineAssetCache = new InlineAssetCache();
+    private final boolean devMode;
+
+    public MailComposerImpl(
+            Environment environment,
+            JavaMailSender mailSender,
+            @Lazy ITemplateEngine templateEngine,
+            @Qualifier("mailTaskExecutor") TaskExecutor mailTaskExecutor,
+            MeterRegistry meterRegistry
+    ) {
+        this.environment = environment;
+        this.mailSender = mailSender;
+        this.templateEngine = templateEngine;
+        this.mailTaskExecutor = mailTaskExecutor;
+        this.meterRegistry = meterRegistry;
+        this.devMode = environment.acceptsProfiles(Profiles.of("dev"));
+    }
+
+    /**
+     * Parses the templates and encodes the images once the application is ready, so the first emails don't pay for it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        mailTaskExecutor.execute(() -> {
+            try {
+                for (MailType type : MailType.values()) {
+                    render(templateName(type), new Context(Locale.ENGLISH));
+                }
+
+                inlineAssetCache.inlinePart("springLogo", SPRING_LOGO_IMAGE_PATH, IMAGE_MIME_TYPE);
+            } catch (Exception e) {
+                logger.warn("Failed to warm up the email templates", e);
+            }
+        });
+    }
+
+    @Override
+    public MimeMessage compose(MailOutbox mailOutbox) throws MessagingException, UnsupportedEncodingException {
+        boolean registration = mailOutbox.getType() == MailType.REGISTRATION;
+
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper emailHelper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
+
+        emailHelper.setTo(mailOutbox.getRecipient());
+        emailHelper.setSubject(registration ? REGISTRATION_SUBJECT : PASSWORD_RESET_SUBJECT);
+        emailHelper.setFrom(new InternetAddress(getMailFrom(), environment.getProperty("mail.from.name", "Identity")));
+
+        Context context = new Context(LocaleContextHolder.getLocale());
+        context.setVariable("email", mailOutbox.getRecipient());
+        context.setVariable("name", mailOutbox.getRecipientName());
+        context.setVariable("url", mailOutbox.getUrl());
+
+        if (registration) {
+            context.setVariable("springLogo", SPRING_LOGO_IMAGE_PATH);
+        }
+
+        emailHelper.setText(render(templateName(mailOutbox.getType()), context), true);
+
+        if (registration) {
+            if (devMode) {
+                inlineAssetCache.clear();
+            }
+
+            MimeBodyPart logoPart = inlineAssetCache.inlinePart("springLogo", SPRING_LOGO_IMAGE_PATH, IMAGE_MIME_TYPE);
+
+            if (logoPart != null) {
+                emailHelper.getMimeMultipart().addBodyPart(logoPart);
+            }
+        }
+
+        return mimeMessage;
+    }
+
+    private String render(String templateName, Context context) {
+        return Timer.builder("auth.mail.template.render")
+            .description("Time spent rendering an email template")
+            .tag("template", templateName)
+            .register(meterRegistry)
+            .record(() -> templateEngine.process(templateName, context));
+    }
+
+    private static String templateName(MailType type) {
+        return type == MailType.REGISTRATION ? REGISTRATION_TEMPLATE_NAME : PASSWORD_RESET_TEMPLATE_NAME;
+    }
+
+    private String getMailFrom() {
+        String mailFrom = environment.getProperty("spring.mail.properties.mail.smtp.from");
+
+        return mailFrom != null && !mailFrom.isBlank() ? mailFrom : environment.getProperty("spring.mail.username");
+    }
+}
@@ -0,0 +1,218 @@
+package com.tericcabrel.authorization.services;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.tericcabrel.authorization.models.entities.MailOutbox;
+import com.tericcabrel.authorization.models.enums.MailStatus;
+import com.tericcabrel.authorization.services.interfaces.MailComposer;
+import com.tericcabrel.authorization.services.interfaces.MailDispatcher;
+import com.tericcabrel.authorization.services.interfaces.MailTransport;
+import com.tericcabrel.authorization.utils.DomainRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Sends the emails of the outbox in the background. Each email is claimed with an atomic update that gives the
+ * instance a lease on it, so several instances can poll the same outbox. An email whose lease expired, because the
+ * instance stopped while sending it, is claimed again.
+ */
+@Service
+public class MailDispatcherImpl implements MailDispatcher {
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final MongoTemplate mongoTemplate;
+
+    private final MailComposer mailComposer;
+
+    private final MailTransport mailTransport;
+
+    private final TaskExecutor mailTaskExecutor;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int batchSize;
+
+    private final int maxAttempts;
+
+    private final long leaseMillis;
+
+    private final long initialBackoffMillis;
+
+    private final long maxBackoffMillis;
+
+    public MailDispatcherImpl(
+        MongoTemplate mongoTemplate,
+        MailComposer mailComposer,
+        MailTransport mailTransport,
+        @Qualifier("mailTaskExecutor") TaskExecutor mailTaskExecutor,
+        MeterRegistry meterRegistry,
+        Environment environment
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.mailComposer = mailComposer;
+        this.mailTransport = mailTransport;
+        this.mailTaskExecutor = mailTaskExecutor;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = environment.getProperty("app.mail.outbox.batch-size", Integer.class, 20);
+        this.maxAttempts = environment.getProperty("app.mail.outbox.max-attempts", Integer.class, 8);
+        this.leaseMillis = environment.getProperty("app.mail.outbox.lease-ms", Long.class, 60_000L);
+        this.initialBackoffMillis = environment.getProperty("app.mail.outbox.initial-backoff-ms", Long.class, 5_000L);
+        this.maxBackoffMillis = environment.getProperty("app.mail.outbox.max-backoff-ms", Long.class, 3_600_000L);
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        try {
+            dispatchPending();
+        } catch (RuntimeException e) {
+            logger.error("Failed to poll the mail outbox", e);
+        }
+    }
+
+    @Override
+    public int dispatchPending() {
+        List<MailOutbox> claimedMails = new ArrayList<>();
+        MailOutbox mailOutbox;
+
+        while (claimedMails.size() < batchSize && (mailOutbox = claimNext()) != null) {
+            claimedMails.add(mailOutbox);
+        }
+
+        // One task per recipient domain, so the messages of a domain share a connection and its rate limit
+        Map<String, List<MailOutbox>> mailsByDomain = claimedMails.stream()
+            .collect(Collectors.groupingBy(mail -> DomainRateLimiter.domainOf(mail.getRecipient())));
+
+        mailsByDomain.forEach((domain, mails) -> {
+            try {
+                mailTaskExecutor.execute(() -> send(domain, mails));
+            } catch (TaskRejectedException e) {
+                // The pool is busy, give the emails back until the next poll
+                mails.forEach(this::release);
+            }
+        });
+
+        return claimedMails.size();
+    }
+
+    private MailOutbox claimNext() {
+        Date now = new Date();
+
+        Query query = query(new Criteria().orOperator(
+            where("status").is(MailStatus.PENDING).and("nextAttemptAt").lte(now),
+            where("status").is(MailStatus.SENDING).and("lockedUntil").lte(now)
+        )).with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+
+        Update update = new Update()
+            .set("status", MailStatus.SENDING)
+            .set("lockedUntil", new Date(now.getTime() + leaseMillis))
+            .inc("attempts", 1);
+
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), MailOutbox.class);
+    }
+
+    private void send(String domain, List<MailOutbox> mails) {
+        Map<MimeMessage, MailOutbox> mailByMessage = new IdentityHashMap<>();
+
+        for (MailOutbox mailOutbox : mails) {
+            try {
+                mailByMessage.put(mailComposer.compose(mailOutbox), mailOutbox);
+            } catch (Exception e) {
+                fail(mailOutbox, e);
+            }
+        }
+
+        mailTransport.send(domain, new ArrayList<>(mailByMessage.keySet()), (message, e) -> {
+            MailOutbox mailOutbox = mailByMessage.get(message);
+
+            if (e != null) {
+                fail(mailOutbox, e);
+
+                return;
+            }
+
+            complete(mailOutbox, new Update()
+                .set("status", MailStatus.SENT)
+                .set("sentAt", new Date())
+                .set("completedAt", new Date())
+                .unset("url")
+                .unset("lockedUntil")
+                .unset("lastError"));
+
+            meterRegistry.counter("auth.mail.outbox.sent", "type", mailOutbox.getType().getValue()).increment();
+        });
+    }
+
+    private void fail(MailOutbox mailOutbox, Exception e) {
+        String type = mailOutbox.getType().getValue();
+
+        if (mailOutbox.getAttempts() >= maxAttempts) {
+            logger.error("Giving up the " + type + " email " + mailOutbox.getId() + " after " + mailOutbox.getAttempts() + " attempts", e);
+
+            complete(mailOutbox, new Update()
+                .set("status", MailStatus.FAILED)
+                .set("lastError", e.getMessage())
+                .set("completedAt", new Date())
+                .unset("url")
+                .unset("lockedUntil"));
+
+            meterRegistry.counter("auth.mail.outbox.failed", "type", type).increment();
+
+            return;
+        }
+
+        long backoffMillis = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(30, mailOutbox.getAttempts() - 1));
+
+        logger.warn("Failed to send the " + type + " email " + mailOutbox.getId() + ", retrying in " + backoffMillis + "ms: " + e.getMessage());
+
+        complete(mailOutbox, new Update()
+            .set("status", MailStatus.PENDING)
+            .set("nextAttemptAt", new Date(System.currentTimeMillis() + backoffMillis))
+            .set("lastError", e.getMessage())
+            .unset("lockedUntil"));
+
+        meterRegistry.counter("auth.mail.outbox.retried", "type", type).increment();
+    }
+
+    private void release(MailOutbox mailOutbox) {
+        complete(mailOutbox, new Update()
+            .set("status", MailStatus.PENDING)
+            .inc("attempts", -1)
+            .unset("lockedUntil"));
+    }
+
+    /**
+     * Applies the update only while the email is still claimed by this attempt, in case the lease expired and another
+     * instance claimed it meanwhile.
+     */
+    private void complete(MailOutbox mailOutbox, Update update) {
+        mongoTemplate.updateFirst(
+            query(where("_id").is(new ObjectId(mailOutbox.getId()))
+                .and("status").is(MailStatus.SENDING)
+                .and("attempts").is(mailOutbox.getAttempts())),
+            update.set("updatedAt", new Date()),
+            MailOutbox.class
+        );
+    }
+}
@@ -0,0 +1,77 @@
+package com.tericcabrel.authorization.services;
+
+import com.tericcabrel.authorization.models.entities.MailOutbox;
+import com.tericcabrel.authorization.models.entities.User;
+import com.tericcabrel.authorization.models.enums.MailStatus;
+import com.tericcabrel.authorization.models.enums.MailType;
+import com.tericcabrel.authorization.repositories.MailOutboxRepository;
+import com.tericcabrel.authorization.services.interfaces.MailOutboxService;
+import com.tericcabrel.authorization.services.interfaces.VerificationTokenService;
+import java.util.Date;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stores the token of the user and the email to send in the same transaction, so an email is never lost after the
+ * request succeeded. The transaction needs a replica set; without {@code app.mongodb.transactions.enabled}, the token
+ * is written first and the email is written right after it. With the signed tokens, only the email is written.
+ */
+@Service
+public class MailOutboxServiceImpl implements MailOutboxService {
+    private final VerificationTokenService verificationTokenService;
+
+    private final MailOutboxRepository mailOutboxRepository;
+
+    private final ObjectProvider<MongoTransactionManager> transactionManager;
+
+    private final Environment environment;
+
+    public MailOutboxServiceImpl(
+        VerificationTokenService verificationTokenService,
+        MailOutboxRepository mailOutboxRepository,
+        ObjectProvider<MongoTransactionManager> transactionManager,
+        Environment environment
+    ) {
+        this.verificationTokenService = verificationTokenService;
+        this.mailOutboxRepository = mailOutboxRepository;
+        this.transactionManager = transactionManager;
+        this.environment = environment;
+    }
+
+    @Override
+    public MailOutbox enqueue(User user, MailType type) {
+        MongoTransactionManager mongoTransactionManager = transactionManager.getIfAvailable();
+
+        if (mongoTransactionManager == null) {
+            return createTokenAndMail(user, type);
+        }
+
+        return new TransactionTemplate(mongoTransactionManager).execute(status -> createTokenAndMail(user, type));
+    }
+
+    private MailOutbox createTokenAndMail(User user, MailType type) {
+        String token = verificationTokenService.issue(user, type);
+
+        MailOutbox mailOutbox = new MailOutbox()
+            .setType(type)
+            .setStatus(MailStatus.PENDING)
+            .setUserId(user.getId())
+            .setRecipient(user.getEmail())
+            .setRecipientName(user.getFirstName() + " " + user.getLastName())
+            .setUrl(buildUrl(type, token))
+            .setNextAttemptAt(new Date());
+
+        return mailOutboxRepository.save(mailOutbox);
+    }
+
+    private String buildUrl(MailType type, String token) {
+        String url = type == MailType.REGISTRATION
+            ? environment.getProperty("app.url.confirm-account", "http://localhost:8080/confirm-account")
+            : environment.getProperty("app.url.password-reset");
+
+        return url + "?token=" + token;
+    }
+}
@@ -0,0 +1,125 @@
+package com.tericcabrel.authorization.services;
+
+import static com.tericcabrel.authorization.utils.Constants.HASHING_QUEUE_FULL_MESSAGE;
+
+import com.tericcabrel.authorization.exceptions.ServiceUnavailableException;
+import com.tericcabrel.authorization.services.interfaces.PasswordHashingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs the password hashing work on a bounded pool sized to the CPU cores, so a burst of logins can only use as many
+ * threads as there are cores and never the servlet container threads. When the queue is full, the task is refused
+ * right away with a {@link ServiceUnavailableException} instead of waiting.
+ */
+@Service
+public class PasswordHashingServiceImpl implements PasswordHashingService {
+    private final PasswordEncoder passwordEncoder;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long retryAfterSeconds;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchesTimer;
+
+    private final Timer taskTimer;
+
+    private final Timer waitTimer;
+
+    private final Counter rejectedCounter;
+
+    public PasswordHashingServiceImpl(PasswordEncoder passwordEncoder, Environment environment, MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+
+        int poolSize = environment.getProperty("app.hashing.pool-size", Integer.class, Runtime.getRuntime().availableProcessors());
+        int queueCapacity = environment.getProperty("app.hashing.queue-capacity", Integer.class, poolSize * 16);
+
+        this.retryAfterSeconds = environment.getProperty("app.hashing.retry-after-seconds", Long.class, 1L);
+        this.executor = new ThreadPoolExecutor(
+            poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new CustomizableThreadFactory("password-hashing-"),
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        Gauge.builder("auth.password.hashing.queue.depth", executor, pool -> pool.getQueue().size())
+            .description("Number of hashing tasks waiting for a thread")
+            .register(meterRegistry);
+        Gauge.builder("auth.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Number of hashing tasks running")
+            .register(meterRegistry);
+
+        this.encodeTimer = hashingTimer(meterRegistry, "encode");
+        this.matchesTimer = hashingTimer(meterRegistry, "matches");
+        this.taskTimer = hashingTimer(meterRegistry, "task");
+        this.waitTimer = Timer.builder("auth.password.hashing.wait")
+            .description("Time spent by a hashing task in the queue")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.password.hashing.rejected")
+            .description("Hashing tasks refused because the queue was full")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return execute(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return execute(taskTimer, task);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> execute(Timer timer, Supplier<T> task) {
+        long submittedAt = System.nanoTime();
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+
+                return timer.record(task);
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+
+            throw new ServiceUnavailableException(HASHING_QUEUE_FULL_MESSAGE, retryAfterSeconds, e);
+        }
+    }
+
+    private static Timer hashingTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("auth.password.hashing.latency")
+            .description("Time spent running a hashing task")
+            .tag("operation", operation)
+            .register(meterRegistry);
+    }
+}
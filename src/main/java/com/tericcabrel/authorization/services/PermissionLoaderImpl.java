@@ -1,99 +1,405 @@
 package com.tericcabrel.authorization.services;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.mongodb.DBRef;
 import com.tericcabrel.authorization.models.dtos.PermissionLoadDto;
+import com.tericcabrel.authorization.models.entities.BootstrapState;
 import com.tericcabrel.authorization.models.entities.Permission;
 import com.tericcabrel.authorization.models.entities.Role;
 import com.tericcabrel.authorization.models.enums.PermissionLoadMode;
-import com.tericcabrel.authorization.repositories.PermissionRepository;
-import com.tericcabrel.authorization.repositories.RoleRepository;
+import com.tericcabrel.authorization.models.response.PermissionSyncReport;
+import com.tericcabrel.authorization.services.interfaces.BootstrapLockService.Lease;
 import com.tericcabrel.authorization.services.interfaces.PermissionLoader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Type;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import org.springframework.util.FileCopyUtils;
 
+/**
+ * Synchronises the permissions and the roles with the catalog file. The file is parsed as a stream and hashed while
+ * it is read; when it is the one applied last time, nothing else is done. Otherwise the stored permissions and roles
+ * are read with one query each, and only the differences are written, with one bulk write per collection.
+ * <p>
+ * In update mode, the catalog is added to what is stored: permissions granted to a role through the API are kept. In
+ * create mode, what is stored is reset to the catalog: the permissions missing from it are removed from the roles and
+ * deleted, and the roles named in it get exactly the permissions it lists. The ids of the permissions kept don't change.
+ * <p>
+ * The catalog is a file of the classpath by default; a location with a prefix, like {@code file:/etc/authz/permission.json},
+ * is read through the resource loader, so it can be changed without a new build.
+ * <p>
+ * The lease is checked before each bulk write, and the checksum is recorded under its fencing token, so a node which
+ * lost the lease while applying an older catalog can't make the others skip the current one.
+ */
 @Service
 public class PermissionLoaderImpl implements PermissionLoader {
 
+  private static final String STATE_ID = "permissions";
+
   private final Log logger = LogFactory.getLog(this.getClass());
 
   @Value("${app.permission.load.mode}")
   private PermissionLoadMode loadMode;
 
-  private final RoleRepository roleRepository;
+  @Value("${app.permission.file.name:permission.json}")
+  private String fileName;
+
+  private final MongoTemplate mongoTemplate;
+
+  private final ResourceLoader resourceLoader;
+
+  private final ReentrantLock loadLock = new ReentrantLock();
+
+  public PermissionLoaderImpl(MongoTemplate mongoTemplate, ResourceLoader resourceLoader) {
+    this.mongoTemplate = mongoTemplate;
+    this.resourceLoader = resourceLoader;
+  }
 
-  private final PermissionRepository permissionRepository;
+  @Override
+  public Resource getCatalog() {
+    return fileName.contains(":") ? resourceLoader.getResource(fileName) : new ClassPathResource(fileName);
+  }
 
-  public PermissionLoaderImpl(RoleRepository roleRepository, PermissionRepository permissionRepository) {
-    this.roleRepository = roleRepository;
-    this.permissionRepository = permissionRepository;
+  /**
+   * Locked, so a reload never interleaves its writes with another one of this instance. A lock rather than a
+   * synchronized method, which would pin a virtual thread for the whole database round trips.
+   */
+  @Override
+  public PermissionSyncReport load(Lease lease) throws IOException {
+    loadLock.lock();
+    try {
+      return apply(lease);
+    } finally {
+      loadLock.unlock();
+    }
   }
 
-  private void addPermissionToRole(Permission permission, String[] roleNames) {
-    Arrays.stream(roleNames).parallel().forEach(roleName -> {
-      Optional<Role> role = roleRepository.findByName(roleName);
+  private PermissionSyncReport apply(Lease lease) throws IOException {
+    long startedAt = System.currentTimeMillis();
+    PermissionSyncReport report = new PermissionSyncReport();
+    Map<String, PermissionLoadDto> catalog = new LinkedHashMap<>();
+
+    report.setChecksum(readCatalog(getCatalog(), catalog));
+    report.setParseMillis(System.currentTimeMillis() - startedAt);
+
+    BootstrapState state = mongoTemplate.findById(STATE_ID, BootstrapState.class);
+
+    // The create mode resets what was changed through the API since, so it always applies the catalog
+    if (loadMode == PermissionLoadMode.UPDATE && state != null && report.getChecksum().equals(state.getChecksum())) {
+      report.setSkipped(true);
+      report.setDurationMillis(System.currentTimeMillis() - startedAt);
+      logger.info("Loading permissions: " + report);
+
+      return report;
+    }
+
+    Date now = new Date();
+    Map<String, ObjectId> permissionIds = new HashMap<>();
+
+    lease.check();
+    Set<ObjectId> removedIds = syncPermissions(catalog, permissionIds, now, report);
+
+    lease.check();
+    syncRoles(catalog, permissionIds, removedIds, now, report);
+
+    saveState(report.getChecksum(), now, lease);
+
+    report.setDurationMillis(System.currentTimeMillis() - startedAt);
+    logger.info("Loading permissions: " + report);
+
+    return report;
+  }
 
-      role.ifPresent(roleFound -> {
-        if (!roleFound.hasPermission(permission.getName())) {
-          roleFound.addPermission(permission);
+  /**
+   * Records the checksum only if no newer lease wrote the state meanwhile. When the coordination is disabled, every
+   * node writes with the token 0, so the state is written as is.
+   */
+  private void saveState(String checksum, Date appliedAt, Lease lease) {
+    Update update = new Update().set("checksum", checksum).set("appliedAt", appliedAt);
+    Query stateQuery = query(where("_id").is(STATE_ID));
 
-          roleRepository.save(roleFound);
+    if (lease.fencingToken() == 0) {
+      mongoTemplate.upsert(stateQuery, update.unset("fencingToken"), BootstrapState.class);
+
+      return;
+    }
+
+    stateQuery.addCriteria(new Criteria().orOperator(
+        where("fencingToken").exists(false), where("fencingToken").lte(lease.fencingToken())
+    ));
+
+    try {
+      // When a newer token wrote the state, the upsert collides with it instead of matching it
+      mongoTemplate.upsert(stateQuery, update.set("fencingToken", lease.fencingToken()), BootstrapState.class);
+    } catch (DuplicateKeyException e) {
+      throw new IllegalStateException("The permission catalog was applied meanwhile under a newer lease", e);
+    }
+  }
+
+  /**
+   * @return the ids of the permissions deleted
+   */
+  private Set<ObjectId> syncPermissions(
+      Map<String, PermissionLoadDto> catalog, Map<String, ObjectId> permissionIds, Date now, PermissionSyncReport report
+  ) {
+    String collection = mongoTemplate.getCollectionName(Permission.class);
+    Query storedQuery = new Query();
+    storedQuery.fields().include("name").include("description");
+
+    Map<String, Document> stored = new HashMap<>();
+    for (Document permission : mongoTemplate.find(storedQuery, Document.class, collection)) {
+      stored.put(permission.getString("name"), permission);
+      permissionIds.put(permission.getString("name"), permission.getObjectId("_id"));
+    }
+
+    BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+    List<String> createdNames = new ArrayList<>();
+    Set<ObjectId> removedIds = new LinkedHashSet<>();
+
+    for (PermissionLoadDto entry : catalog.values()) {
+      Document current = stored.get(entry.getName());
+
+      if (current == null) {
+        bulkOperations.upsert(
+            query(where("name").is(entry.getName())),
+            new Update().set("description", entry.getDescription()).set("updatedAt", now).setOnInsert("createdAt", now)
+        );
+        createdNames.add(entry.getName());
+      } else if (!Objects.equals(current.getString("description"), entry.getDescription())) {
+        bulkOperations.updateOne(
+            query(where("_id").is(current.getObjectId("_id"))),
+            new Update().set("description", entry.getDescription()).set("updatedAt", now)
+        );
+        report.getUpdatedPermissionNames().add(entry.getName());
+      }
+    }
+
+    if (loadMode == PermissionLoadMode.CREATE) {
+      stored.forEach((name, permission) -> {
+        if (!catalog.containsKey(name)) {
+          removedIds.add(permission.getObjectId("_id"));
+          permissionIds.remove(name);
+          report.getRemovedPermissionNames().add(name);
         }
       });
-    });
+
+      if (!removedIds.isEmpty()) {
+        bulkOperations.remove(query(where("_id").in(removedIds)));
+      }
+    }
+
+    if (!createdNames.isEmpty() || !report.getUpdatedPermissionNames().isEmpty() || !removedIds.isEmpty()) {
+      bulkOperations.execute();
+    }
+
+    if (!createdNames.isEmpty()) {
+      Query createdQuery = query(where("name").in(createdNames));
+      createdQuery.fields().include("name");
+
+      for (Document permission : mongoTemplate.find(createdQuery, Document.class, collection)) {
+        permissionIds.put(permission.getString("name"), permission.getObjectId("_id"));
+      }
+    }
+
+    report.getCreatedPermissionNames().addAll(createdNames);
+
+    return removedIds;
   }
 
-  private void loadPermissions(List<PermissionLoadDto> permissionLoadDtoList) {
-    permissionLoadDtoList.parallelStream().forEach(permissionLoadDto -> {
-      Permission permissionCreated;
-      Optional<Permission> permission = permissionRepository.findByName(permissionLoadDto.getName());
+  private void syncRoles(
+      Map<String, PermissionLoadDto> catalog,
+      Map<String, ObjectId> permissionIds,
+      Set<ObjectId> removedIds,
+      Date now,
+      PermissionSyncReport report
+  ) {
+    String permissionCollection = mongoTemplate.getCollectionName(Permission.class);
+    String roleCollection = mongoTemplate.getCollectionName(Role.class);
+
+    Map<String, Set<ObjectId>> wanted = new LinkedHashMap<>();
+    for (PermissionLoadDto entry : catalog.values()) {
+      ObjectId permissionId = permissionIds.get(entry.getName());
 
-      if (permission.isEmpty()) {
-        permissionCreated = permissionRepository.save(permissionLoadDto.toPermission());
-      } else {
-        permissionCreated = permission.get();
+      for (String roleName : entry.getRoleNames()) {
+        wanted.computeIfAbsent(roleName, name -> new LinkedHashSet<>()).add(permissionId);
       }
+    }
 
-      addPermissionToRole(permissionCreated, permissionLoadDto.getRoleNames());
-    });
+    // Read as documents, so the references to the permissions are not resolved
+    Query storedQuery = new Query();
+    storedQuery.fields().include("name").include("permissions");
+
+    BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, roleCollection);
+    Set<String> foundRoles = new LinkedHashSet<>();
+
+    for (Document role : mongoTemplate.find(storedQuery, Document.class, roleCollection)) {
+      String name = role.getString("name");
+      Set<ObjectId> current = referencedIds(role.get("permissions"));
+      Set<ObjectId> rolePermissions = wanted.get(name);
+
+      foundRoles.add(name);
+
+      if (loadMode == PermissionLoadMode.CREATE) {
+        Set<ObjectId> target = new LinkedHashSet<>(rolePermissions != null ? rolePermissions : current);
+        target.removeAll(removedIds);
+
+        if (!target.equals(current)) {
+          bulkOperations.updateOne(
+              query(where("_id").is(role.getObjectId("_id"))),
+              new Update().set("permissions", references(permissionCollection, target)).set("updatedAt", now)
+          );
+          report.getUpdatedRoleNames().add(name);
+        }
+      } else if (rolePermissions != null) {
+        Set<ObjectId> missing = new LinkedHashSet<>(rolePermissions);
+        missing.removeAll(current);
+
+        if (!missing.isEmpty()) {
+          bulkOperations.updateOne(
+              query(where("_id").is(role.getObjectId("_id"))),
+              new Update().addToSet("permissions").each(references(permissionCollection, missing).toArray())
+                  .set("updatedAt", now)
+          );
+          report.getUpdatedRoleNames().add(name);
+        }
+      }
+    }
+
+    if (!report.getUpdatedRoleNames().isEmpty()) {
+      bulkOperations.execute();
+    }
+
+    wanted.keySet().stream().filter(name -> !foundRoles.contains(name)).forEach(report.getMissingRoles()::add);
   }
 
-  @Override
-  public void load() {
-    List<PermissionLoadDto> permissionLoadDtoList;
+  /**
+   * Parses the catalog entry by entry, computing the checksum of the file on the way.
+   *
+   * @return the SHA-256 of the file
+   */
+  private static String readCatalog(Resource resource, Map<String, PermissionLoadDto> catalog) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+
+    try (InputStream inputStream = new DigestInputStream(resource.getInputStream(), digest);
+        JsonReader reader = new JsonReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+      reader.beginArray();
+
+      while (reader.hasNext()) {
+        PermissionLoadDto entry = readEntry(reader);
 
-    if (loadMode.equals(PermissionLoadMode.CREATE)) {
-      permissionRepository.deleteAll();
+        catalog.put(entry.getName(), entry);
+      }
+
+      reader.endArray();
+
+      // The bytes after the array are part of the file too
+      inputStream.transferTo(OutputStream.nullOutputStream());
+    } catch (IllegalStateException e) {
+      throw new IOException("The permission file " + resource.getFilename() + " is invalid", e);
+    }
+
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static PermissionLoadDto readEntry(JsonReader reader) throws IOException {
+    PermissionLoadDto entry = new PermissionLoadDto();
+    List<String> roleNames = new ArrayList<>();
+
+    reader.beginObject();
+
+    while (reader.hasNext()) {
+      String property = reader.nextName();
+
+      if (reader.peek() == JsonToken.NULL) {
+        reader.nextNull();
+        continue;
+      }
+
+      switch (property) {
+        case "name" -> entry.setName(reader.nextString());
+        case "description" -> entry.setDescription(reader.nextString());
+        case "roleNames" -> {
+          reader.beginArray();
+          while (reader.hasNext()) {
+            roleNames.add(reader.nextString());
+          }
+          reader.endArray();
+        }
+        default -> reader.skipValue();
+      }
     }
 
-    Resource resource = new ClassPathResource("permission.json");
+    reader.endObject();
 
-    try (InputStream inputStream = resource.getInputStream()) {
+    if (entry.getName() == null || entry.getName().isBlank()) {
+      throw new IOException("A permission has no name at " + reader.getPath());
+    }
+
+    entry.setRoleNames(roleNames.toArray(String[]::new));
 
-      byte[] binaryData = FileCopyUtils.copyToByteArray(inputStream);
-      String data = new String(binaryData, StandardCharsets.UTF_8);
+    return entry;
+  }
 
-      Type permissionLoadDtoListType = new TypeToken<ArrayList<PermissionLoadDto>>() {
-      }.getType();
+  /**
+   * The references may be read as driver references or as plain documents, depending on the codec.
+   */
+  private static Set<ObjectId> referencedIds(Object references) {
+    Set<ObjectId> ids = new LinkedHashSet<>();
 
-      permissionLoadDtoList = new Gson().fromJson(data, permissionLoadDtoListType);
+    if (references instanceof List<?> list) {
+      for (Object reference : list) {
+        Object id = reference instanceof DBRef dbRef ? dbRef.getId()
+            : reference instanceof Document document ? document.get("$id")
+            : null;
 
-      loadPermissions(permissionLoadDtoList);
-    } catch (IOException ignored) {
-      logger.error("Loading permissions: failed to read permission file!");
+        if (id instanceof ObjectId objectId) {
+          ids.add(objectId);
+        }
+      }
     }
+
+    return ids;
+  }
+
+  private static List<DBRef> references(String collection, Set<ObjectId> ids) {
+    return ids.stream().map(id -> new DBRef(collection, id)).toList();
   }
 }
@@ -0,0 +1,196 @@
+package com.tericcabrel.authorization.services;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import com.tericcabrel.authorization.models.response.PermissionSyncReport;
+import com.tericcabrel.authorization.services.interfaces.BootstrapLockService;
+import com.tericcabrel.authorization.services.interfaces.PermissionLoader;
+import com.tericcabrel.authorization.services.interfaces.PermissionReloadService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+/**
+ * Applies the permission catalog at startup, on demand, and whenever the file changes when it is outside the
+ * application. The directory of the file is watched rather than the file itself, because editors and mounted config
+ * maps replace a file by renaming another one over it. Only the events of the catalog are considered, and those of the
+ * {@code ..data} link a mounted config map swaps to replace all its files at once. A change is applied once the catalog
+ * has been quiet for the debounce delay, so a file written in several steps is read once complete.
+ * <p>
+ * Authorities are read from the roles on each request, and the loader changes each role with a single write, so a
+ * request sees a role either before or after a reload. The last report is swapped in one step for the readers. The
+ * nodes apply the catalog one at a time, under a lease; the ones after the first find it applied already.
+ */
+@Service
+public class PermissionReloadServiceImpl implements PermissionReloadService {
+    private static final String CONFIG_MAP_DATA_LINK = "..data";
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final PermissionLoader permissionLoader;
+
+    private final BootstrapLockService bootstrapLockService;
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean watchEnabled;
+
+    private final long debounceMillis;
+
+    private final AtomicReference<PermissionSyncReport> lastReport = new AtomicReference<>();
+
+    private volatile WatchService watchService;
+
+    private Path catalogName;
+
+    public PermissionReloadServiceImpl(
+        PermissionLoader permissionLoader,
+        BootstrapLockService bootstrapLockService,
+        MeterRegistry meterRegistry,
+        Environment environment
+    ) {
+        this.permissionLoader = permissionLoader;
+        this.bootstrapLockService = bootstrapLockService;
+        this.meterRegistry = meterRegistry;
+        this.watchEnabled = environment.getProperty("app.permission.watch.enabled", Boolean.class, true);
+        this.debounceMillis = environment.getProperty("app.permission.watch.debounce-ms", Long.class, 500L);
+    }
+
+    @Override
+    public PermissionSyncReport reload(String trigger) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+
+        try {
+            PermissionSyncReport report = bootstrapLockService.runExclusive("permissions", permissionLoader::load);
+
+            lastReport.set(report);
+            outcome = report.isSkipped() ? "skipped" : "applied";
+
+            return report;
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+
+            throw new IllegalStateException("Failed to reload the permission catalog", e);
+        } finally {
+            sample.stop(Timer.builder("auth.permission.reload")
+                .description("Time spent applying the permission catalog")
+                .tag("trigger", trigger)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public Optional<PermissionSyncReport> lastReport() {
+        return Optional.ofNullable(lastReport.get());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWatching() {
+        if (!watchEnabled) {
+            return;
+        }
+
+        Resource catalog = permissionLoader.getCatalog();
+
+        if (!catalog.isFile()) {
+            logger.info("The permission catalog " + catalog.getDescription() + " is packaged, changes are not watched");
+            return;
+        }
+
+        try {
+            Path file = catalog.getFile().toPath().toAbsolutePath();
+
+            catalogName = file.getFileName();
+            watchService = file.getFileSystem().newWatchService();
+            file.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+
+            Thread.ofPlatform().daemon().name("permission-watcher").start(this::watch);
+
+            logger.info("Watching the permission catalog " + file);
+        } catch (IOException e) {
+            logger.warn("Unable to watch the permission catalog " + catalog.getDescription(), e);
+        }
+    }
+
+    @PreDestroy
+    public void stopWatching() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                if (!concernsCatalog(watchService.take())) {
+                    continue;
+                }
+
+                // The other files of the directory don't delay the reload
+                long quietUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+                long remaining;
+
+                while ((remaining = quietUntil - System.nanoTime()) > 0) {
+                    WatchKey key = watchService.poll(remaining, TimeUnit.NANOSECONDS);
+
+                    if (key != null && concernsCatalog(key)) {
+                        quietUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+                    }
+                }
+
+                try {
+                    logger.info("Permission catalog reloaded: " + reload("watch"));
+                } catch (IOException | RuntimeException e) {
+                    logger.error("Failed to reload the permission catalog, the previous one stays applied", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ignored) {
+            // The application is stopping
+        }
+    }
+
+    private boolean concernsCatalog(WatchKey key) {
+        boolean catalogChanged = false;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            // The events were lost when the queue overflowed, the catalog may be among them
+            if (event.kind() == OVERFLOW) {
+                catalogChanged = true;
+                continue;
+            }
+
+            Path name = (Path) event.context();
+            catalogChanged |= name.equals(catalogName) || name.toString().equals(CONFIG_MAP_DATA_LINK);
+        }
+
+        key.reset();
+
+        return catalogChanged;
+    }
+}
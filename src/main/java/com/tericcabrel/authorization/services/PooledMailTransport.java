@@ -0,0 +1,62 @@
+package com.tericcabrel.authorization.services;
+
+import com.tericcabrel.authorization.services.interfaces.MailTransport;
+import com.tericcabrel.authorization.utils.DomainRateLimiter;
+import com.tericcabrel.authorization.utils.SmtpTransportPool;
+import com.tericcabrel.authorization.utils.SmtpTransportPool.PooledTransport;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Sends all the messages of a domain over one connection borrowed from the pool. A failed connection is dropped and
+ * the next message gets a new one. The rate permit is taken before the connection: when the domain must wait, the
+ * connection goes back to the pool meanwhile, so the other domains can use it.
+ */
+public class PooledMailTransport implements MailTransport {
+    private final SmtpTransportPool transportPool;
+
+    private final DomainRateLimiter domainRateLimiter;
+
+    public PooledMailTransport(SmtpTransportPool transportPool, DomainRateLimiter domainRateLimiter) {
+        this.transportPool = transportPool;
+        this.domainRateLimiter = domainRateLimiter;
+    }
+
+    @Override
+    public void send(String domain, List<MimeMessage> messages, BiConsumer<MimeMessage, Exception> callback) {
+        PooledTransport pooledTransport = null;
+
+        for (MimeMessage message : messages) {
+            try {
+                if (!domainRateLimiter.tryAcquire(domain)) {
+                    if (pooledTransport != null) {
+                        transportPool.release(pooledTransport, false);
+                        pooledTransport = null;
+                    }
+
+                    domainRateLimiter.acquire(domain);
+                }
+
+                if (pooledTransport == null) {
+                    pooledTransport = transportPool.borrow();
+                }
+
+                pooledTransport.send(message);
+                callback.accept(message, null);
+            } catch (MessagingException | RuntimeException e) {
+                if (pooledTransport != null) {
+                    transportPool.release(pooledTransport, true);
+                    pooledTransport = null;
+                }
+
+                callback.accept(message, e);
+            }
+        }
+
+        if (pooledTransport != null) {
+            transportPool.release(pooledTransport, false);
+        }
+    }
+}
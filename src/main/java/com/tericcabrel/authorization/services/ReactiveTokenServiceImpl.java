@@ -0,0 +1,57 @@
+package com.tericcabrel.authorization.services;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.tericcabrel.authorization.models.entities.User;
+import com.tericcabrel.authorization.services.interfaces.ReactiveTokenService;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads the refresh tokens written by the Redis repository and the users without blocking a thread. There are no
+ * reactive Redis repositories, so the keys of the repository are read directly: the hash of each token and the set
+ * indexing the tokens by value.
+ */
+@Service
+public class ReactiveTokenServiceImpl implements ReactiveTokenService {
+    private static final String REFRESH_TOKEN_KEYSPACE = "refreshToken";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public ReactiveTokenServiceImpl(ReactiveStringRedisTemplate redisTemplate, ReactiveMongoTemplate mongoTemplate) {
+        this.redisTemplate = redisTemplate;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Mono<String> findUserIdByRefreshToken(String refreshToken) {
+        // The index can outlive a token deleted outside the repository, so the token itself must still exist
+        return redisTemplate.opsForSet().members(REFRESH_TOKEN_KEYSPACE + ":value:" + refreshToken)
+            .filterWhen(id -> redisTemplate.hasKey(REFRESH_TOKEN_KEYSPACE + ":" + id))
+            .next();
+    }
+
+    /**
+     * The role references can't be resolved reactively, so only the email is read, which is all the token holds.
+     */
+    @Override
+    public Mono<User> findTokenSubject(String userId) {
+        if (!ObjectId.isValid(userId)) {
+            return Mono.empty();
+        }
+
+        Query userQuery = query(where("_id").is(new ObjectId(userId)));
+        userQuery.fields().include("email");
+
+        return mongoTemplate.findOne(userQuery, Document.class, mongoTemplate.getCollectionName(User.class))
+            .map(document -> new User().setEmail(document.getString("email")));
+    }
+}
@@ -0,0 +1,104 @@
+package com.tericcabrel.authorization.services;
+
+import com.tericcabrel.authorization.services.interfaces.FileStorage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+/**
+ * Keeps the files in a bucket of an S3 compatible storage, so all the replicas share them. The client given splits
+ * large files into parts uploaded in parallel over its own connection pool. The downloads go straight to the storage
+ * with a presigned URL.
+ */
+public class S3FileStorage implements FileStorage {
+    private static final String IMMUTABLE_CACHE = "public, max-age=31536000, immutable";
+
+    private final S3AsyncClient client;
+
+    private final S3Presigner presigner;
+
+    private final String bucket;
+
+    private final Duration presignDuration;
+
+    private final long timeoutMillis;
+
+    public S3FileStorage(S3AsyncClient client, S3Presigner presigner, String bucket, Duration presignDuration, long timeoutMillis) {
+        this.client = client;
+        this.presigner = presigner;
+        this.bucket = bucket;
+        this.presignDuration = presignDuration;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        await(client.putObject(
+            request -> request.bucket(bucket).key(key).contentType(contentType).cacheControl(IMMUTABLE_CACHE),
+            AsyncRequestBody.fromFile(source)
+        ), key);
+
+        Files.deleteIfExists(source);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        try {
+            await(client.headObject(request -> request.bucket(bucket).key(key)), key);
+
+            return true;
+        } catch (IOException e) {
+            if (e.getCause() instanceof S3Exception s3Exception && s3Exception.statusCode() == 404) {
+                return false;
+            }
+
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        await(client.deleteObject(request -> request.bucket(bucket).key(key)), key);
+    }
+
+    @Override
+    public URI urlOf(String key) {
+        try {
+            return presigner.presignGetObject(request -> request
+                .signatureDuration(presignDuration)
+                .getObjectRequest(getObject -> getObject.bucket(bucket).key(key))
+            ).url().toURI();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Invalid presigned URL for " + key, e);
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> future, String key) throws IOException {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException("Interrupted while accessing " + key);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to access " + key + " in the bucket " + bucket, e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+
+            throw new IOException("Timed out accessing " + key + " in the bucket " + bucket, e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.tericcabrel.authorization.services;
+
+import static com.tericcabrel.authorization.utils.Constants.INVALID_TOKEN_MESSAGE;
+import static com.tericcabrel.authorization.utils.Constants.TOKEN_EXPIRED_MESSAGE;
+
+import com.tericcabrel.authorization.exceptions.ResourceNotFoundException;
+import com.tericcabrel.authorization.exceptions.TokenExpiredException;
+import com.tericcabrel.authorization.models.entities.User;
+import com.tericcabrel.authorization.models.enums.MailType;
+import com.tericcabrel.authorization.repositories.UserRepository;
+import com.tericcabrel.authorization.services.interfaces.VerificationTokenService;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.bson.types.ObjectId;
+
+/**
+ * Issues HMAC-signed tokens which carry the user id, the purpose, the expiry and a fingerprint of the user state, so
+ * nothing is written when a link is sent and the token is checked without reading a token collection.
+ * <p>
+ * The fingerprint makes the token usable once: a confirmation token is bound to the unconfirmed state and a reset
+ * token to the current password hash, so confirming the account or changing the password invalidates it. A password
+ * hash upgraded at login also invalidates a pending reset link. Two requests racing with the same reset token are
+ * settled by the password update, which only applies over the hash the token was checked against.
+ * <p>
+ * Layout before the Base64 URL encoding: version (1 byte), purpose (1), user id (12), expiry in epoch seconds (8),
+ * fingerprint (16), then the HMAC-SHA256 of these bytes (32).
+ */
+public class SignedVerificationTokenService implements VerificationTokenService {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final byte VERSION = 1;
+
+    private static final int FINGERPRINT_LENGTH = 16;
+
+    private static final int PAYLOAD_LENGTH = 1 + 1 + 12 + Long.BYTES + FINGERPRINT_LENGTH;
+
+    private static final int SIGNATURE_LENGTH = 32;
+
+    private final UserRepository userRepository;
+
+    private final SecretKeySpec key;
+
+    private final long lifetimeSeconds;
+
+    private final Clock clock;
+
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::newMac);
+
+    public SignedVerificationTokenService(UserRepository userRepository, String secret, long lifetimeSeconds, Clock clock) {
+        this.userRepository = userRepository;
+        this.lifetimeSeconds = lifetimeSeconds;
+        this.clock = clock;
+
+        // Derive a key of its own, so these tokens can never be confused with another use of the same secret
+        SecretKeySpec secretKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.key = new SecretKeySpec(sign(secretKey, "verification-token".getBytes(StandardCharsets.UTF_8)), ALGORITHM);
+    }
+
+    @Override
+    public String issue(User user, MailType type) {
+        ByteBuffer buffer = ByteBuffer.allocate(PAYLOAD_LENGTH + SIGNATURE_LENGTH)
+            .put(VERSION)
+            .put(type.getCode())
+            .put(new ObjectId(user.getId()).toByteArray())
+            .putLong(clock.instant().getEpochSecond() + lifetimeSeconds)
+            .put(fingerprint(user, type));
+
+        byte[] token = buffer.array();
+        System.arraycopy(mac(token, PAYLOAD_LENGTH), 0, token, PAYLOAD_LENGTH, SIGNATURE_LENGTH);
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    @Override
+    public User verify(String token, MailType type) throws ResourceNotFoundException, TokenExpiredException {
+        byte[] bytes = decode(token);
+
+        if (bytes.length != PAYLOAD_LENGTH + SIGNATURE_LENGTH) {
+            throw new ResourceNotFoundException(INVALID_TOKEN_MESSAGE);
+        }
+
+        byte[] signature = Arrays.copyOfRange(bytes, PAYLOAD_LENGTH, bytes.length);
+
+        if (!MessageDigest.isEqual(signature, mac(bytes, PAYLOAD_LENGTH))) {
+            throw new ResourceNotFoundException(INVALID_TOKEN_MESSAGE);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, PAYLOAD_LENGTH);
+        byte version = buffer.get();
+        byte purpose = buffer.get();
+        byte[] userId = new byte[12];
+        buffer.get(userId);
+        long expireAt = buffer.getLong();
+        byte[] fingerprint = new byte[FINGERPRINT_LENGTH];
+        buffer.get(fingerprint);
+
+        if (version != VERSION || purpose != type.getCode()) {
+            throw new ResourceNotFoundException(INVALID_TOKEN_MESSAGE);
+        }
+
+        if (expireAt < clock.instant().getEpochSecond()) {
+            throw new TokenExpiredException(TOKEN_EXPIRED_MESSAGE);
+        }
+
+        Optional<User> userOptional = userRepository.findById(new ObjectId(userId));
+
+        if (userOptional.isEmpty() || !MessageDigest.isEqual(fingerprint, fingerprint(userOptional.get(), type))) {
+            throw new ResourceNotFoundException(INVALID_TOKEN_MESSAGE);
+        }
+
+        return userOptional.get();
+    }
+
+    /**
+     * Nothing to remove: the saved action changes the state the fingerprint is bound to.
+     */
+    @Override
+    public void invalidate(String token, MailType type) {
+    }
+
+    private byte[] fingerprint(User user, MailType type) {
+        String state = type == MailType.REGISTRATION ? "confirmed:" + user.isConfirmed() : "password:" + user.getPassword();
+        byte[] bytes = state.getBytes(StandardCharsets.UTF_8);
+
+        return Arrays.copyOf(mac(bytes, bytes.length), FINGERPRINT_LENGTH);
+    }
+
+    private byte[] mac(byte[] input, int length) {
+        Mac instance = mac.get();
+        instance.update(input, 0, length);
+
+        return instance.doFinal();
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance(ALGORITHM);
+            instance.init(key);
+
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialize " + ALGORITHM, e);
+        }
+    }
+
+    private static byte[] sign(SecretKeySpec secretKey, byte[] input) {
+        try {
+            Mac instance = Mac.getInstance(ALGORITHM);
+            instance.init(secretKey);
+
+            return instance.doFinal(input);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialize " + ALGORITHM, e);
+        }
+    }
+
+    private static byte[] decode(String token) throws ResourceNotFoundException {
+        try {
+            return Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new ResourceNotFoundException(INVALID_TOKEN_MESSAGE);
+        }
+    }
+}
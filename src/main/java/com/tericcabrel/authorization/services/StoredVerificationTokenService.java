@@ -0,0 +1,49 @@
+package com.tericcabrel.authorization.services;
+
+import static com.tericcabrel.authorization.utils.Constants.TOKEN_EXPIRED_MESSAGE;
+
+import com.tericcabrel.authorization.exceptions.ResourceNotFoundException;
+import com.tericcabrel.authorization.exceptions.TokenExpiredException;
+import com.tericcabrel.authorization.models.entities.User;
+import com.tericcabrel.authorization.models.entities.UserAccount;
+import com.tericcabrel.authorization.models.enums.MailType;
+import com.tericcabrel.authorization.services.interfaces.UserAccountService;
+import com.tericcabrel.authorization.services.interfaces.VerificationTokenService;
+import java.util.UUID;
+
+/**
+ * Keeps a random token per link in the {@code users_accounts} collection, and removes it once the action it authorized
+ * has been saved.
+ */
+public class StoredVerificationTokenService implements VerificationTokenService {
+    private final UserAccountService userAccountService;
+
+    public StoredVerificationTokenService(UserAccountService userAccountService) {
+        this.userAccountService = userAccountService;
+    }
+
+    @Override
+    public String issue(User user, MailType type) {
+        String token = UUID.randomUUID().toString();
+        userAccountService.save(user, token);
+
+        return token;
+    }
+
+    @Override
+    public User verify(String token, MailType type) throws ResourceNotFoundException, TokenExpiredException {
+        UserAccount userAccount = userAccountService.findByToken(token);
+
+        // The TTL monitor removes the expired tokens only once a minute
+        if (userAccount.isExpired()) {
+            throw new TokenExpiredException(TOKEN_EXPIRED_MESSAGE);
+        }
+
+        return userAccount.getUser();
+    }
+
+    @Override
+    public void invalidate(String token, MailType type) {
+        userAccountService.deleteByToken(token);
+    }
+}
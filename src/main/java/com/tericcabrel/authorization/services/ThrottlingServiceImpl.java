@@ -0,0 +1,130 @@
+package com.tericcabrel.authorization.services;
+
+import static com.tericcabrel.authorization.utils.Constants.TOO_MANY_REQUESTS_MESSAGE;
+
+import com.tericcabrel.authorization.exceptions.TooManyRequestsException;
+import com.tericcabrel.authorization.models.enums.ThrottleRule;
+import com.tericcabrel.authorization.services.interfaces.ThrottlingService;
+import com.tericcabrel.authorization.utils.StripedTokenBuckets;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+/**
+ * Checks a request against a token bucket kept in memory first, which rejects an abusive client without any network
+ * call, then against a sliding window in Redis shared by all the instances. When Redis is unavailable, only the local
+ * limit applies and Redis is skipped for a while.
+ */
+@Service
+public class ThrottlingServiceImpl implements ThrottlingService {
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private static final RedisScript<Long> SLIDING_WINDOW_SCRIPT = RedisScript.of(
+        new ClassPathResource("scripts/sliding-window.lua"), Long.class
+    );
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final StripedTokenBuckets tokenBuckets;
+
+    private final Map<ThrottleRule, Limit> limits = new EnumMap<>(ThrottleRule.class);
+
+    private final boolean enabled;
+
+    private final boolean redisEnabled;
+
+    private final long redisBackoffMillis;
+
+    private volatile long redisSkippedUntil;
+
+    public ThrottlingServiceImpl(StringRedisTemplate redisTemplate, Environment environment, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = environment.getProperty("app.throttling.enabled", Boolean.class, true);
+        this.redisEnabled = environment.getProperty("app.throttling.redis.enabled", Boolean.class, true);
+        this.redisBackoffMillis = environment.getProperty("app.throttling.redis.backoff-ms", Long.class, 5000L);
+        this.tokenBuckets = new StripedTokenBuckets(
+            environment.getProperty("app.throttling.stripes", Integer.class, 64),
+            environment.getProperty("app.throttling.max-keys-per-stripe", Integer.class, 1024)
+        );
+
+        for (ThrottleRule rule : ThrottleRule.values()) {
+            String prefix = "app.throttling." + rule.getValue();
+
+            limits.put(rule, new Limit(
+                environment.getProperty(prefix + ".limit", Long.class, 10L),
+                TimeUnit.SECONDS.toMillis(environment.getProperty(prefix + ".window-seconds", Long.class, 60L))
+            ));
+        }
+    }
+
+    @Override
+    public void check(ThrottleRule rule, String key) throws TooManyRequestsException {
+        if (!enabled || key == null) {
+            return;
+        }
+
+        Limit limit = limits.get(rule);
+        String bucketKey = rule.getValue() + ":" + key;
+
+        long waitNanos = tokenBuckets.tryConsume(bucketKey, limit.limit(), TimeUnit.MILLISECONDS.toNanos(limit.windowMillis()));
+
+        if (waitNanos > 0) {
+            reject(rule, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+
+        long waitMillis = checkRedis(bucketKey, limit);
+
+        if (waitMillis > 0) {
+            reject(rule, waitMillis);
+        }
+    }
+
+    private long checkRedis(String bucketKey, Limit limit) {
+        long now = System.currentTimeMillis();
+
+        if (!redisEnabled || now < redisSkippedUntil) {
+            return 0;
+        }
+
+        try {
+            Long waitMillis = redisTemplate.execute(
+                SLIDING_WINDOW_SCRIPT,
+                List.of("throttle:" + bucketKey),
+                String.valueOf(now),
+                String.valueOf(limit.windowMillis()),
+                String.valueOf(limit.limit()),
+                now + ":" + ThreadLocalRandom.current().nextLong()
+            );
+
+            return waitMillis != null ? waitMillis : 0;
+        } catch (RuntimeException e) {
+            redisSkippedUntil = now + redisBackoffMillis;
+
+            logger.warn("Throttling store unavailable, only the local limits apply for " + redisBackoffMillis + "ms", e);
+
+            return 0;
+        }
+    }
+
+    private void reject(ThrottleRule rule, long waitMillis) {
+        meterRegistry.counter("auth.throttling.rejected", "rule", rule.getValue()).increment();
+
+        throw new TooManyRequestsException(TOO_MANY_REQUESTS_MESSAGE, Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999)));
+    }
+
+    private record Limit(long limit, long windowMillis) {
+    }
+}
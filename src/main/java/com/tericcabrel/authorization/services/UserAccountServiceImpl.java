@@ -2,10 +2,14 @@ package com.tericcabrel.authorization.services;
 
 import static com.tericcabrel.authorization.utils.Constants.INVALID_TOKEN_MESSAGE;
 import static com.tericcabrel.authorization.utils.Constants.RESOURCE_NOT_FOUND_MESSAGE;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
 
 import com.tericcabrel.authorization.exceptions.ResourceNotFoundException;
 import com.tericcabrel.authorization.services.interfaces.UserAccountService;
+import com.tericcabrel.authorization.utils.Helpers;
 import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -19,8 +23,11 @@ import com.tericcabrel.authorization.repositories.UserAccountRepository;
 public class UserAccountServiceImpl implements UserAccountService {
     private final UserAccountRepository userAccountRepository;
 
-    public UserAccountServiceImpl(UserAccountRepository userAccountRepository) {
+    private final MongoTemplate mongoTemplate;
+
+    public UserAccountServiceImpl(UserAccountRepository userAccountRepository, MongoTemplate mongoTemplate) {
         this.userAccountRepository = userAccountRepository;
+        this.mongoTemplate = mongoTemplate;
     }
 
     @Override
@@ -32,8 +39,9 @@ public class UserAccountServiceImpl implements UserAccountService {
         c.add(Calendar.DATE, 2);
 
         newUserAccount.setUser(user)
-                .setToken(token)
-                .setExpireAt(c.getTime().getTime());
+                .setTokenHash(Helpers.sha256(token))
+                .setExpireAt(c.getTime().getTime())
+                .setExpiresAt(c.getTime());
 
         return userAccountRepository.save(newUserAccount);
     }
@@ -53,7 +61,7 @@ public class UserAccountServiceImpl implements UserAccountService {
 
     @Override
     public UserAccount findByToken(String token) throws ResourceNotFoundException {
-        Optional<UserAccount> userAccountOptional = userAccountRepository.findByToken(token);
+        Optional<UserAccount> userAccountOptional = userAccountRepository.findByTokenHash(Helpers.sha256(token));
 
         if (userAccountOptional.isEmpty()) {
             throw new ResourceNotFoundException(INVALID_TOKEN_MESSAGE);
@@ -62,6 +70,11 @@ public class UserAccountServiceImpl implements UserAccountService {
         return userAccountOptional.get();
     }
 
+    @Override
+    public void deleteByToken(String token) {
+        mongoTemplate.remove(query(where("tokenHash").is(Helpers.sha256(token))), UserAccount.class);
+    }
+
     @Override
     public UserAccount findById(String id) throws ResourceNotFoundException {
         Optional<UserAccount> confirmAccountOptional = userAccountRepository.findById(new ObjectId(id));
@@ -1,14 +1,32 @@
 package com.tericcabrel.authorization.services;
 
 import static com.tericcabrel.authorization.utils.Constants.USER_NOT_FOUND_MESSAGE;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
 
+import com.mongodb.DBRef;
 import com.tericcabrel.authorization.exceptions.ResourceNotFoundException;
+import com.tericcabrel.authorization.exceptions.ServiceUnavailableException;
+import com.tericcabrel.authorization.models.entities.Permission;
+import com.tericcabrel.authorization.models.entities.Role;
+import com.tericcabrel.authorization.services.interfaces.AvatarService;
+import com.tericcabrel.authorization.services.interfaces.EmailFilterService;
+import com.tericcabrel.authorization.services.interfaces.PasswordHashingService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.Document;
 import org.bson.types.ObjectId;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -23,23 +41,62 @@ import com.tericcabrel.authorization.services.interfaces.UserService;
 
 @Service
 public class UserServiceImpl implements UserService {
+    private final Log logger = LogFactory.getLog(this.getClass());
+
     private final UserRepository userRepository;
 
-    @Autowired
-    private BCryptPasswordEncoder bCryptEncoder; // Fails when injected by the constructor
+    private final MongoTemplate mongoTemplate;
+
+    private final PasswordHashingService passwordHashingService;
+
+    private final EmailFilterService emailFilterService;
+
+    private final AvatarService avatarService;
 
-    public UserServiceImpl(UserRepository userRepository) {
+    /**
+     * Runs the writes which follow a hashing, so a slow database never holds the workers of the hashing pool.
+     */
+    private final TaskExecutor loginTaskExecutor;
+
+    public UserServiceImpl(
+        UserRepository userRepository,
+        MongoTemplate mongoTemplate,
+        PasswordHashingService passwordHashingService,
+        EmailFilterService emailFilterService,
+        AvatarService avatarService,
+        @Qualifier("loginTaskExecutor") TaskExecutor loginTaskExecutor
+    ) {
         this.userRepository = userRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.passwordHashingService = passwordHashingService;
+        this.emailFilterService = emailFilterService;
+        this.avatarService = avatarService;
+        this.loginTaskExecutor = loginTaskExecutor;
     }
 
     @Override
     public User save(CreateUserDto createUserDto) {
+        return await(saveAsync(createUserDto));
+    }
+
+    @Override
+    public CompletableFuture<User> saveAsync(CreateUserDto createUserDto) {
+        return passwordHashingService.encode(createUserDto.getPassword())
+            .thenApplyAsync(encodedPassword -> {
+                User user = userRepository.save(newUser(createUserDto, encodedPassword));
+                emailFilterService.add(user.getEmail());
+
+                return user;
+            }, loginTaskExecutor);
+    }
+
+    private User newUser(CreateUserDto createUserDto, String encodedPassword) {
         User newUser = new User();
 
         newUser.setEmail(createUserDto.getEmail())
                 .setFirstName(createUserDto.getFirstName())
                 .setLastName(createUserDto.getLastName())
-                .setPassword(bCryptEncoder.encode(createUserDto.getPassword()))
+                .setPassword(encodedPassword)
                 .setGender(createUserDto.getGender())
                 .setConfirmed(createUserDto.isConfirmed())
                 .setEnabled(createUserDto.isEnabled())
@@ -48,7 +105,7 @@ public class UserServiceImpl implements UserService {
                 .setCoordinates(createUserDto.getCoordinates())
                 .setRole(createUserDto.getRole());
 
-        return userRepository.save(newUser);
+        return newUser;
     }
 
     @Override
@@ -61,7 +118,16 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void delete(String id) {
-        userRepository.deleteById(new ObjectId(id));
+        Query userQuery = query(where("_id").is(new ObjectId(id)));
+        userQuery.fields().include("avatar").include("avatarSizes");
+
+        // The pictures are released by the removal which returned them, so a concurrent delete can't release them twice
+        User removedUser = mongoTemplate.findAndRemove(userQuery, User.class);
+
+        if (removedUser != null) {
+            emailFilterService.markRemoved(1);
+            avatarService.release(removedUser);
+        }
     }
 
     @Override
@@ -86,65 +152,231 @@ public class UserServiceImpl implements UserService {
         return optionalUser.get();
     }
 
+    /**
+     * Loads many users with one $in query. The role and permission references are detached from the raw documents
+     * and resolved with one query per collection, instead of one DBRef lookup per user.
+     *
+     * @param ids Identifiers of the users to load
+     *
+     * @return the users found, keyed by the identifier as it was requested
+     */
+    @Override
+    public Map<String, User> findAllByIds(List<String> ids) {
+        List<ObjectId> objectIds = ids.stream().filter(ObjectId::isValid).map(ObjectId::new).distinct().toList();
+
+        if (objectIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<Document> documents = mongoTemplate.find(
+            query(where("_id").in(objectIds)), Document.class, mongoTemplate.getCollectionName(User.class)
+        );
+
+        Map<String, User> usersById = new HashMap<>();
+        Map<String, Object> roleIdByUserId = new HashMap<>();
+        Map<String, List<Object>> permissionIdsByUserId = new HashMap<>();
+
+        documents.forEach(document -> {
+            DBRef roleRef = (DBRef) document.remove("role");
+            List<?> permissionRefs = (List<?>) document.remove("permissions");
+
+            User user = mongoTemplate.getConverter().read(User.class, document);
+            usersById.put(user.getId(), user);
+
+            if (roleRef != null) {
+                roleIdByUserId.put(user.getId(), roleRef.getId());
+            }
+            if (permissionRefs != null) {
+                permissionIdsByUserId.put(
+                    user.getId(), permissionRefs.stream().map(permissionRef -> ((DBRef) permissionRef).getId()).toList()
+                );
+            }
+        });
+
+        Map<String, Role> rolesById = new HashMap<>();
+        mongoTemplate.find(query(where("_id").in(new HashSet<>(roleIdByUserId.values()))), Role.class)
+            .forEach(role -> rolesById.put(role.getId(), role));
+
+        Map<String, Permission> permissionsById = new HashMap<>();
+        Set<Object> permissionIds = new HashSet<>();
+        permissionIdsByUserId.values().forEach(permissionIds::addAll);
+
+        if (!permissionIds.isEmpty()) {
+            mongoTemplate.find(query(where("_id").in(permissionIds)), Permission.class)
+                .forEach(permission -> permissionsById.put(permission.getId(), permission));
+        }
+
+        usersById.values().forEach(user -> {
+            Object roleId = roleIdByUserId.get(user.getId());
+            if (roleId != null) {
+                user.setRole(rolesById.get(roleId.toString()));
+            }
+
+            Set<Permission> permissions = new HashSet<>();
+            permissionIdsByUserId.getOrDefault(user.getId(), Collections.emptyList()).forEach(permissionId -> {
+                Permission permission = permissionsById.get(permissionId.toString());
+                if (permission != null) {
+                    permissions.add(permission);
+                }
+            });
+            user.setPermissions(permissions);
+        });
+
+        Map<String, User> result = new HashMap<>();
+        ids.forEach(id -> {
+            if (ObjectId.isValid(id)) {
+                User user = usersById.get(new ObjectId(id).toHexString());
+                if (user != null) {
+                    result.put(id, user);
+                }
+            }
+        });
+
+        return result;
+    }
+
     @Override
     public User update(String id, UpdateUserDto updateUserDto) throws ResourceNotFoundException {
-        User user = findById(id);
+        Update update = new Update().set("updatedAt", new Date());
 
         if(updateUserDto.getFirstName() != null) {
-            user.setFirstName(updateUserDto.getFirstName());
+            update.set("firstName", updateUserDto.getFirstName());
         }
         if(updateUserDto.getLastName() != null) {
-            user.setLastName(updateUserDto.getLastName());
+            update.set("lastName", updateUserDto.getLastName());
         }
         if(updateUserDto.getTimezone() != null) {
-            user.setTimezone(updateUserDto.getTimezone());
+            update.set("timezone", updateUserDto.getTimezone());
         }
         if(updateUserDto.getGender() != null) {
-            user.setGender(updateUserDto.getGender());
+            update.set("gender", updateUserDto.getGender());
         }
         if(updateUserDto.getAvatar() != null) {
-            user.setAvatar(updateUserDto.getAvatar());
+            update.set("avatar", updateUserDto.getAvatar());
         }
         if(updateUserDto.getCoordinates() != null) {
-            user.setCoordinates(updateUserDto.getCoordinates());
+            update.set("coordinates", updateUserDto.getCoordinates());
+        }
+
+        User user = updateFields(id, update);
+
+        if (user == null) {
+            throw new ResourceNotFoundException(USER_NOT_FOUND_MESSAGE);
         }
 
-        return userRepository.save(user);
+        return user;
     }
 
     @Override
-    public void update(User user) {
-        userRepository.save(user);
+    public void updatePermissions(User user) {
+        updateFields(user.getId(), new Update().set("permissions", user.getPermissions()).set("updatedAt", new Date()));
+    }
+
+    /**
+     * The writes of this service set only the fields they change: the picture is committed later by another thread, and
+     * saving a whole user loaded before would bring back the picture it had then.
+     */
+    private User updateFields(String id, Update update) {
+        return mongoTemplate.findAndModify(
+            query(where("_id").is(new ObjectId(id))), update, FindAndModifyOptions.options().returnNew(true), User.class
+        );
     }
 
     @Override
     public User updatePassword(String id, UpdatePasswordDto updatePasswordDto) throws ResourceNotFoundException {
-        User user = findById(id);
-
-        if (bCryptEncoder.matches(updatePasswordDto.getCurrentPassword(), user.getPassword())) {
-            user.setPassword(bCryptEncoder.encode(updatePasswordDto.getNewPassword()));
+        return await(updatePasswordAsync(id, updatePasswordDto));
+    }
 
-            return userRepository.save(user);
-        }
+    @Override
+    public CompletableFuture<User> updatePasswordAsync(String id, UpdatePasswordDto updatePasswordDto)
+        throws ResourceNotFoundException {
+        User user = findById(id);
 
-        return null;
+        return passwordHashingService.matches(updatePasswordDto.getCurrentPassword(), user.getPassword())
+            .thenCompose(matches -> {
+                if (!matches) {
+                    return CompletableFuture.completedFuture(null);
+                }
+
+                // Only if the hash the current password was checked against is still the stored one
+                return passwordHashingService.encode(updatePasswordDto.getNewPassword())
+                    .thenApplyAsync(encodedPassword -> mongoTemplate.findAndModify(
+                        query(where("_id").is(new ObjectId(id)).and("password").is(user.getPassword())),
+                        new Update().set("password", encodedPassword).set("updatedAt", new Date()),
+                        FindAndModifyOptions.options().returnNew(true),
+                        User.class
+                    ), loginTaskExecutor);
+            });
     }
 
     @Override
     public void updatePassword(String id, String newPassword) throws ResourceNotFoundException {
-        User user = findById(id);
+        await(updatePasswordAsync(id, newPassword));
+    }
 
-        user.setPassword(bCryptEncoder.encode(newPassword));
+    @Override
+    public CompletableFuture<User> updatePasswordAsync(String id, String newPassword) throws ResourceNotFoundException {
+        // Fails before hashing when the user doesn't exist
+        findById(id);
+
+        return passwordHashingService.encode(newPassword)
+            .thenApplyAsync(
+                encodedPassword -> updateFields(id, new Update().set("password", encodedPassword).set("updatedAt", new Date())),
+                loginTaskExecutor
+            );
+    }
 
-        userRepository.save(user);
+    /**
+     * Sets the password only if the stored hash is still the one of the user given, which is the hash the reset token
+     * was checked against, so a token can't reset the password twice even with concurrent requests.
+     *
+     * @return the updated user, or null when the password changed meanwhile
+     */
+    @Override
+    public CompletableFuture<User> resetPasswordAsync(User user, String newPassword) {
+        return passwordHashingService.encode(newPassword)
+            .thenApplyAsync(encodedPassword -> mongoTemplate.findAndModify(
+                query(where("_id").is(new ObjectId(user.getId())).and("password").is(user.getPassword())),
+                new Update().set("password", encodedPassword).set("updatedAt", new Date()),
+                FindAndModifyOptions.options().returnNew(true),
+                User.class
+            ), loginTaskExecutor);
     }
 
-    public void confirm(String id) throws ResourceNotFoundException {
-        User user = findById(id);
+    /**
+     * Re-encodes the password with the current hashing policy when the stored hash is weaker. The update only applies
+     * if the stored hash did not change meanwhile, so a password changed concurrently is never overwritten.
+     */
+    @Override
+    public CompletableFuture<Boolean> upgradePasswordHash(User user, String rawPassword) {
+        String currentPassword = user.getPassword();
 
-        user.setConfirmed(true);
+        if (!passwordHashingService.upgradeEncoding(currentPassword)) {
+            return CompletableFuture.completedFuture(false);
+        }
 
-        userRepository.save(user);
+        try {
+            return passwordHashingService.encode(rawPassword)
+                .thenApplyAsync(encodedPassword -> mongoTemplate.updateFirst(
+                    query(where("_id").is(new ObjectId(user.getId())).and("password").is(currentPassword)),
+                    new Update().set("password", encodedPassword).set("updatedAt", new Date()),
+                    User.class
+                ).getModifiedCount() > 0, loginTaskExecutor)
+                .exceptionally(e -> {
+                    logger.warn("Failed to upgrade the password hash of the user " + user.getId(), e);
+
+                    return false;
+                });
+        } catch (ServiceUnavailableException e) {
+            // The upgrade is retried on the next login, it must not compete with the logins for the hashing pool
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    public void confirm(String id) throws ResourceNotFoundException {
+        if (updateFields(id, new Update().set("confirmed", true).set("updatedAt", new Date())) == null) {
+            throw new ResourceNotFoundException(USER_NOT_FOUND_MESSAGE);
+        }
     }
 
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -161,6 +393,21 @@ public class UserServiceImpl implements UserService {
         );
     }
 
+    /**
+     * Waits for a hashing result on the calling thread, for the callers that are not asynchronous.
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw e;
+        }
+    }
+
     private Set<SimpleGrantedAuthority> getAuthority(User user) {
         Set<SimpleGrantedAuthority> authorities = new HashSet<>();
 
@@ -0,0 +1,29 @@
+package com.tericcabrel.authorization.services.interfaces;
+
+import com.tericcabrel.authorization.models.entities.User;
+import java.net.URI;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface AvatarService {
+    /**
+     * Stages the picture and processes it in the background. The user is updated once the resized pictures are stored.
+     * Meanwhile the avatar status of the user is processing, then ready, or failed with the reason in the avatar error.
+     */
+    void submit(String userId, MultipartFile file);
+
+    /**
+     * @return the URL of the smallest resized picture at least as large as the size requested, or of the largest one,
+     * null when the user has no picture
+     */
+    URI urlFor(User user, int size);
+
+    /**
+     * Clears the picture of the user and releases the files it referenced, as read by the same write.
+     */
+    void delete(String userId);
+
+    /**
+     * Drops the references to the pictures of a user who was removed, so the files no other user shares are deleted.
+     */
+    void release(User removedUser);
+}
@@ -0,0 +1,38 @@
+package com.tericcabrel.authorization.services.interfaces;
+
+public interface BootstrapLockService {
+    /**
+     * Runs a task on a single node for each version. The other nodes wait until it is completed, or take it over if
+     * the node running it stops renewing its lease.
+     *
+     * @return true when the task ran on this node, false when it was completed already or the wait timed out
+     */
+    boolean runOnce(String task, String version, LeasedRunnable runnable) throws Exception;
+
+    /**
+     * Runs a task every time it is called, on one node at a time.
+     */
+    <T> T runExclusive(String task, LeasedCallable<T> callable) throws Exception;
+
+    interface Lease {
+        /**
+         * @return a number increased each time the lease is acquired, or 0 when the coordination is disabled
+         */
+        long fencingToken();
+
+        /**
+         * @throws IllegalStateException when another node holds the lease now
+         */
+        void check();
+    }
+
+    @FunctionalInterface
+    interface LeasedRunnable {
+        void run(Lease lease) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface LeasedCallable<T> {
+        T call(Lease lease) throws Exception;
+    }
+}
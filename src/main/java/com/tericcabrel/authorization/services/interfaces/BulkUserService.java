@@ -0,0 +1,11 @@
+package com.tericcabrel.authorization.services.interfaces;
+
+import com.tericcabrel.authorization.exceptions.ResourceNotFoundException;
+import com.tericcabrel.authorization.models.dtos.BulkUserOperationDto;
+import com.tericcabrel.authorization.models.entities.BulkUserJob;
+
+public interface BulkUserService {
+    BulkUserJob submit(BulkUserOperationDto bulkUserOperationDto, String requestedBy) throws ResourceNotFoundException;
+
+    BulkUserJob findJob(String id) throws ResourceNotFoundException;
+}
@@ -0,0 +1,21 @@
+package com.tericcabrel.authorization.services.interfaces;
+
+public interface EmailFilterService {
+    /**
+     * @return false when no user has this email for sure, true when a user might have it and the database must be
+     * checked
+     */
+    boolean mightExist(String email);
+
+    void add(String email);
+
+    /**
+     * A Bloom filter can't forget a value, so the removed users are only counted to rebuild the filter sooner.
+     */
+    void markRemoved(long count);
+
+    /**
+     * Records that the database didn't find an email the filter reported as present.
+     */
+    void recordFalsePositive();
+}
@@ -0,0 +1,25 @@
+package com.tericcabrel.authorization.services.interfaces;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+
+/**
+ * Where the stored files are kept. The keys are content-addressed, so a key is never written twice with a different
+ * content and a stored file can be cached forever.
+ */
+public interface FileStorage {
+    /**
+     * Stores a local file under the key. The source file may be moved by the call.
+     */
+    void put(String key, Path source, String contentType) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /**
+     * @return the URL clients download the file from, without going through the application when the storage allows it
+     */
+    URI urlOf(String key);
+}
@@ -0,0 +1,33 @@
+package com.tericcabrel.authorization.services.interfaces;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface FileStorageService {
+    /**
+     * Copies an upload as is into the local staging directory, to be processed later.
+     *
+     * @return the staged file, to delete with {@link #deleteStaged(Path)} once processed
+     */
+    Path stage(MultipartFile file);
+
+    void deleteStaged(Path stagedFile);
+
+    /**
+     * @param inputStream the content to store, closed once copied
+     * @param fileName the name the extension of the stored file is taken from
+     *
+     * @return the path of the stored file, to keep as a reference to it
+     */
+    String storeFile(InputStream inputStream, String fileName);
+
+    /**
+     * Drops a reference to a stored file. The file is deleted once nothing references it.
+     */
+    void release(String fileName) throws IOException;
+
+    URI urlOf(String fileName);
+}
@@ -0,0 +1,9 @@
+package com.tericcabrel.authorization.services.interfaces;
+
+import com.tericcabrel.authorization.models.dtos.LoginUserDto;
+import com.tericcabrel.authorization.models.response.LoginResult;
+import java.util.concurrent.CompletableFuture;
+
+public interface LoginService {
+    CompletableFuture<LoginResult> login(LoginUserDto loginUserDto);
+}
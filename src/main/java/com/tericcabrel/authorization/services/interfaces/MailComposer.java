@@ -0,0 +1,10 @@
+package com.tericcabrel.authorization.services.interfaces;
+
+import com.tericcabrel.authorization.models.entities.MailOutbox;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import java.io.UnsupportedEncodingException;
+
+public interface MailComposer {
+    MimeMessage compose(MailOutbox mailOutbox) throws MessagingException, UnsupportedEncodingException;
+}
@@ -0,0 +1,5 @@
+package com.tericcabrel.authorization.services.interfaces;
+
+public interface MailDispatcher {
+    int dispatchPending();
+}
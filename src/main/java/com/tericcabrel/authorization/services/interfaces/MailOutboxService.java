@@ -0,0 +1,9 @@
+package com.tericcabrel.authorization.services.interfaces;
+
+import com.tericcabrel.authorization.models.entities.MailOutbox;
+import com.tericcabrel.authorization.models.entities.User;
+import com.tericcabrel.authorization.models.enums.MailType;
+
+public interface MailOutboxService {
+    MailOutbox enqueue(User user, MailType type);
+}
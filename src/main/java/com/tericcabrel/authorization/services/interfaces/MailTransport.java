@@ -0,0 +1,13 @@
+package com.tericcabrel.authorization.services.interfaces;
+
+import jakarta.mail.internet.MimeMessage;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+public interface MailTransport {
+    /**
+     * Sends messages to the same recipient domain. The result of each message is reported to the callback, with a null
+     * exception when the message was sent.
+     */
+    void send(String domain, List<MimeMessage> messages, BiConsumer<MimeMessage, Exception> callback);
+}
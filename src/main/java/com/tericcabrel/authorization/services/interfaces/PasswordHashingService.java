@@ -0,0 +1,14 @@
+package com.tericcabrel.authorization.services.interfaces;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public interface PasswordHashingService {
+    CompletableFuture<String> encode(CharSequence rawPassword);
+
+    CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword);
+
+    boolean upgradeEncoding(String encodedPassword);
+
+    <T> CompletableFuture<T> submit(Supplier<T> task);
+}
@@ -1,5 +1,20 @@
 package com.tericcabrel.authorization.services.interfaces;
 
+import com.tericcabrel.authorization.models.response.PermissionSyncReport;
+import com.tericcabrel.authorization.services.interfaces.BootstrapLockService.Lease;
+import java.io.IOException;
+import org.springframework.core.io.Resource;
+
 public interface PermissionLoader {
-  void load();
+  /**
+   * @return the permission catalog file configured
+   */
+  Resource getCatalog();
+
+  /**
+   * Applies the permission catalog to the permissions and roles stored. Loading the same catalog again changes nothing.
+   *
+   * @param lease The lease the catalog is applied under, checked between the writes
+   */
+  PermissionSyncReport load(Lease lease) throws IOException;
 }
@@ -0,0 +1,19 @@
+package com.tericcabrel.authorization.services.interfaces;
+
+import com.tericcabrel.authorization.models.response.PermissionSyncReport;
+import java.io.IOException;
+import java.util.Optional;
+
+public interface PermissionReloadService {
+    /**
+     * Applies the permission catalog now.
+     *
+     * @param trigger what asked for the reload, recorded in the metrics
+     */
+    PermissionSyncReport reload(String trigger) throws IOException;
+
+    /**
+     * @return the report of the last reload which succeeded
+     */
+    Optional<PermissionSyncReport> lastReport();
+}
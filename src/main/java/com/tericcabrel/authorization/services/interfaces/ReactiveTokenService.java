@@ -0,0 +1,16 @@
+package com.tericcabrel.authorization.services.interfaces;
+
+import com.tericcabrel.authorization.models.entities.User;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveTokenService {
+    /**
+     * Emits the id of the user the refresh token was given to, or nothing when the token isn't allocated.
+     */
+    Mono<String> findUserIdByRefreshToken(String refreshToken);
+
+    /**
+     * Emits the user with only the fields needed to sign a token, or nothing when it doesn't exist.
+     */
+    Mono<User> findTokenSubject(String userId);
+}
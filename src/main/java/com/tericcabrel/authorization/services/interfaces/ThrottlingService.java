@@ -0,0 +1,8 @@
+package com.tericcabrel.authorization.services.interfaces;
+
+import com.tericcabrel.authorization.exceptions.TooManyRequestsException;
+import com.tericcabrel.authorization.models.enums.ThrottleRule;
+
+public interface ThrottlingService {
+    void check(ThrottleRule rule, String key) throws TooManyRequestsException;
+}
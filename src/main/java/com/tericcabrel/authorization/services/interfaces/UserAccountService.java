@@ -15,5 +15,7 @@ public interface UserAccountService {
 
     UserAccount findByToken(String token) throws ResourceNotFoundException;
 
+    void deleteByToken(String token);
+
     UserAccount findById(String id) throws ResourceNotFoundException;
 }
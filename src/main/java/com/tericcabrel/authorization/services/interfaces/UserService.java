@@ -2,6 +2,8 @@ package com.tericcabrel.authorization.services.interfaces;
 
 import com.tericcabrel.authorization.exceptions.ResourceNotFoundException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import com.tericcabrel.authorization.models.dtos.UpdatePasswordDto;
 import com.tericcabrel.authorization.models.dtos.UpdateUserDto;
@@ -12,6 +14,8 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 public interface UserService extends UserDetailsService {
     User save(CreateUserDto createUserDto);
 
+    CompletableFuture<User> saveAsync(CreateUserDto createUserDto);
+
     List<User> findAll();
 
     void delete(String id);
@@ -20,14 +24,28 @@ public interface UserService extends UserDetailsService {
 
     User findById(String id) throws ResourceNotFoundException;
 
+    Map<String, User> findAllByIds(List<String> ids);
+
     User update(String id, UpdateUserDto updateUserDto) throws ResourceNotFoundException;
 
-    void update(User user);
+    /**
+     * Writes only the permissions of the user, so the fields updated meanwhile by another request are kept.
+     */
+    void updatePermissions(User user);
 
     User updatePassword(String id, UpdatePasswordDto updatePasswordDto)
         throws ResourceNotFoundException;
 
+    CompletableFuture<User> updatePasswordAsync(String id, UpdatePasswordDto updatePasswordDto)
+        throws ResourceNotFoundException;
+
     void updatePassword(String id, String newPassword) throws ResourceNotFoundException;
 
+    CompletableFuture<User> updatePasswordAsync(String id, String newPassword) throws ResourceNotFoundException;
+
+    CompletableFuture<User> resetPasswordAsync(User user, String newPassword);
+
+    CompletableFuture<Boolean> upgradePasswordHash(User user, String rawPassword);
+
     void confirm(String id) throws ResourceNotFoundException;
 }
@@ -0,0 +1,31 @@
+package com.tericcabrel.authorization.services.interfaces;
+
+import com.tericcabrel.authorization.exceptions.ResourceNotFoundException;
+import com.tericcabrel.authorization.exceptions.TokenExpiredException;
+import com.tericcabrel.authorization.models.entities.User;
+import com.tericcabrel.authorization.models.enums.MailType;
+
+/**
+ * Issues and checks the tokens of the account confirmation and password reset links.
+ */
+public interface VerificationTokenService {
+    String issue(User user, MailType type);
+
+    /**
+     * Checks the token without invalidating it, so a link stays usable when the action it authorizes fails.
+     *
+     * @param token The token from the link
+     * @param type The purpose the token must have been issued for
+     *
+     * @return the user the token was issued for
+     */
+    User verify(String token, MailType type) throws ResourceNotFoundException, TokenExpiredException;
+
+    /**
+     * Invalidates the token once the action it authorized has been saved, so it can be used once.
+     *
+     * @param token The token from the link
+     * @param type The purpose the token was issued for
+     */
+    void invalidate(String token, MailType type);
+}
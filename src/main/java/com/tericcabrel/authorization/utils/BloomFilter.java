@@ -0,0 +1,142 @@
+package com.tericcabrel.authorization.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter of strings: {@link #mightContain(String)} never returns false for a value added, and
+ * returns true for a value never added with a probability close to {@link #expectedFpp()}. The bits are set with
+ * compare-and-set, so adding and reading need no lock.
+ */
+public class BloomFilter {
+    private final AtomicLongArray bits;
+
+    private final long bitSize;
+
+    private final int hashCount;
+
+    private final AtomicLong bitCount = new AtomicLong();
+
+    private final AtomicLong elementCount = new AtomicLong();
+
+    private BloomFilter(long bitSize, int hashCount) {
+        int words = (int) Math.min(Integer.MAX_VALUE, (bitSize + 63) / 64);
+
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = (long) words * 64;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * @param expectedInsertions the number of values the filter is sized for
+     * @param fpp the false positive probability wanted once the expected number of values is added
+     */
+    public static BloomFilter create(long expectedInsertions, double fpp) {
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("The false positive probability must be between 0 and 1");
+        }
+
+        long n = Math.max(1, expectedInsertions);
+        long bitSize = Math.max(64, (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+        int hashCount = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+
+        return new BloomFilter(bitSize, hashCount);
+    }
+
+    public void put(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1);
+        boolean changed = false;
+
+        for (int i = 0; i < hashCount; i++) {
+            changed |= setBit(index(hash1, hash2, i));
+        }
+
+        if (changed) {
+            elementCount.incrementAndGet();
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1);
+
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hash1, hash2, i);
+
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the probability that {@link #mightContain(String)} returns true for a value never added, estimated from
+     * the share of bits set
+     */
+    public double expectedFpp() {
+        return Math.pow((double) bitCount.get() / bitSize, hashCount);
+    }
+
+    /**
+     * @return the number of values added, approximate because values whose bits were all set already are not counted
+     */
+    public long approximateElementCount() {
+        return elementCount.get();
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    private long index(long hash1, long hash2, int i) {
+        return Math.floorMod(hash1 + i * hash2, bitSize);
+    }
+
+    private boolean setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+
+        do {
+            current = bits.get(word);
+
+            if ((current & mask) != 0) {
+                return false;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+
+        bitCount.incrementAndGet();
+
+        return true;
+    }
+
+    /**
+     * 64-bit FNV-1a of the UTF-8 bytes, mixed again to spread the bits of short values.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+
+        return z ^ (z >>> 31);
+    }
+}
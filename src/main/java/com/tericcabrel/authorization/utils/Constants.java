@@ -23,6 +23,7 @@ public class Constants {
     public static final String TOKEN_EXPIRED_MESSAGE = "You token has been expired!";
     public static final String ACCOUNT_DEACTIVATED_MESSAGE = "Your account has been deactivated!";
     public static final String ACCOUNT_NOT_CONFIRMED_MESSAGE = "Your account isn't confirmed yet!";
+    public static final String BAD_CREDENTIALS_MESSAGE = "Bad credentials";
     public static final String ACCOUNT_CONFIRMED_MESSAGE = "Your account confirmed successfully!";
     public static final String NO_USER_FOUND_WITH_EMAIL_MESSAGE = "No user found with this email!";
     public static final String PASSWORD_LINK_SENT_MESSAGE = "A password reset link has been sent to your email box!";
@@ -34,6 +35,22 @@ public class Constants {
     public static final String ROLE_NOT_FOUND_MESSAGE = "Role not found!";
     public static final String PERMISSION_NOT_FOUND_MESSAGE = "Permission not found!";
     public static final String USER_NOT_FOUND_MESSAGE = "User not found!";
+    public static final String AVATAR_QUEUE_FULL_MESSAGE = "Too many pictures are being processed, try again later!";
+    public static final String AVATAR_FILE_REQUIRED_MESSAGE = "The picture file is required!";
+    public static final String AVATAR_NOT_FOUND_MESSAGE = "The user has no picture!";
+    public static final String AVATAR_PROCESSING_FAILED_MESSAGE = "The picture couldn't be processed!";
+    public static final String DUPLICATE_KEY_MESSAGE = "A record with the same unique value already exists!";
+    public static final String BULK_JOB_NOT_FOUND_MESSAGE = "Bulk job not found!";
+    public static final String BULK_NO_TARGET_MESSAGE = "Provide either the users identifiers or a non empty filter!";
+    public static final String BULK_QUEUE_FULL_MESSAGE = "Too many bulk jobs are running, try again later!";
+
+    public static final String PERMISSION_CATALOG_INVALID_MESSAGE = "The permission catalog can't be applied: ";
+    public static final String PERMISSION_RELOAD_NOT_FOUND_MESSAGE = "The permission catalog hasn't been loaded yet!";
+    public static final String OPENAPI_SPEC_NOT_FOUND_MESSAGE = "The OpenAPI spec wasn't generated, build with the profile openapi!";
+
+    public static final String HASHING_QUEUE_FULL_MESSAGE = "The server is busy, try again later!";
+
+    public static final String TOO_MANY_REQUESTS_MESSAGE = "Too many attempts, try again later!";
 
     public static final String SWG_AUTH_TAG_NAME = "Registration & Authentication";
     public static final String SWG_AUTH_TAG_DESCRIPTION = "Operations pertaining to registration, authentication and account confirmation";
@@ -69,6 +86,8 @@ public class Constants {
     public static final String SWG_USER_TAG_DESCRIPTION = "Manage users";
     public static final String SWG_USER_LIST_OPERATION = "Get all users";
     public static final String SWG_USER_LIST_MESSAGE = "List retrieved successfully!";
+    public static final String SWG_USER_LOOKUP_OPERATION = "Get many users by their identifiers";
+    public static final String SWG_USER_LOOKUP_MESSAGE = "Users retrieved in the requested order, missing ones are marked as not found";
     public static final String SWG_USER_LOGGED_OPERATION = "Get the authenticated user";
     public static final String SWG_USER_LOGGED_MESSAGE = "User retrieved successfully!";
     public static final String SWG_USER_ITEM_OPERATION = "Get one user";
@@ -83,6 +102,9 @@ public class Constants {
     public static final String SWG_USER_PICTURE_OPERATION = "Change or delete user picture";
     public static final String SWG_USER_PICTURE_MESSAGE = "The picture updated/deleted successfully!";
     public static final String SWG_USER_PICTURE_ERROR = "An IOException occurred!";
+    public static final String SWG_USER_PICTURE_ACCEPTED_MESSAGE = "The picture is accepted and will be processed shortly, the avatarStatus of the user tells when it is done";
+    public static final String SWG_USER_AVATAR_OPERATION = "Get the user picture in the size closest to the one requested";
+    public static final String SWG_USER_AVATAR_MESSAGE = "Redirect to the picture file";
     public static final String SWG_USER_PERMISSION_ASSIGN_OPERATION = "Assign permissions to user";
     public static final String SWG_USER_PERMISSION_ASSIGN_MESSAGE = "Permissions successfully assigned to user!";
     public static final String SWG_USER_PERMISSION_REVOKE_OPERATION = "Revoke permissions to user";
@@ -119,4 +141,12 @@ public class Constants {
     public static final String SWG_ADMIN_CREATE_ERROR = "Failed to create the admin";
     public static final String SWG_ADMIN_DELETE_OPERATION = "Delete an admin";
     public static final String SWG_ADMIN_DELETE_MESSAGE = "Admin deleted successfully!";
+    public static final String SWG_ADMIN_BULK_OPERATION = "Enable, disable, delete or change the role of many users";
+    public static final String SWG_ADMIN_BULK_MESSAGE = "Bulk job accepted, poll the job to follow its progress";
+    public static final String SWG_ADMIN_BULK_JOB_OPERATION = "Get the progress of a bulk job";
+    public static final String SWG_ADMIN_BULK_JOB_MESSAGE = "Bulk job retrieved successfully!";
+    public static final String SWG_ADMIN_PERMISSION_RELOAD_OPERATION = "Apply the permission catalog now";
+    public static final String SWG_ADMIN_PERMISSION_RELOAD_MESSAGE = "Permission catalog applied, the report lists the changes";
+    public static final String SWG_ADMIN_PERMISSION_REPORT_OPERATION = "Get the report of the last permission catalog load";
+    public static final String SWG_ADMIN_PERMISSION_REPORT_MESSAGE = "Report retrieved successfully!";
 }
\ No newline at end of file
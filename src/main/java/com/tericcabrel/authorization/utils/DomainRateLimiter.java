@@ -0,0 +1,58 @@
+package com.tericcabrel.authorization.utils;
+
+import jakarta.mail.MessagingException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of messages sent to each recipient domain, since the large providers throttle or reject senders
+ * that go over their limits. The caller waits for its turn, up to a maximum.
+ */
+public class DomainRateLimiter {
+    private final StripedTokenBuckets tokenBuckets = new StripedTokenBuckets(16, 1024);
+
+    private final long limit;
+
+    private final long periodNanos;
+
+    private final long maxWaitNanos;
+
+    public DomainRateLimiter(long limit, long periodMillis, long maxWaitMillis) {
+        this.limit = limit;
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    }
+
+    /**
+     * Takes a permit of the domain only if one is available now.
+     */
+    public boolean tryAcquire(String domain) {
+        return tokenBuckets.tryConsume(domain, limit, periodNanos) == 0;
+    }
+
+    public void acquire(String domain) throws MessagingException {
+        long waitedNanos = 0;
+        long waitNanos;
+
+        while ((waitNanos = tokenBuckets.tryConsume(domain, limit, periodNanos)) > 0) {
+            if (waitedNanos + waitNanos > maxWaitNanos) {
+                throw new MessagingException("Rate limit reached for the domain " + domain);
+            }
+
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new MessagingException("Interrupted while waiting for the rate limit of " + domain, e);
+            }
+
+            waitedNanos += waitNanos;
+        }
+    }
+
+    public static String domainOf(String email) {
+        int at = email.lastIndexOf('@');
+
+        return at >= 0 ? email.substring(at + 1).toLowerCase() : email.toLowerCase();
+    }
+}
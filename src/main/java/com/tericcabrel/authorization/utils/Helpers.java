@@ -1,6 +1,10 @@
 package com.tericcabrel.authorization.utils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 
@@ -24,6 +28,23 @@ public class Helpers {
         return result.toString();
     }
 
+    /**
+     * Hash a value with SHA-256
+     *
+     * @param value The value to hash
+     *
+     * @return the hash as a hexadecimal string
+     */
+    public static String sha256(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+        }
+    }
+
     /**
      * Get the extension of the file name provided
      *
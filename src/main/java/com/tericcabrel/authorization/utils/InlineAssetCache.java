@@ -0,0 +1,59 @@
+package com.tericcabrel.authorization.utils;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Part;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.PreencodedMimeBodyPart;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Keeps the static images embedded in the emails already encoded in base64, so they are read from the classpath and
+ * encoded once instead of for every message. A body part belongs to a single message, so a new one is built each time
+ * around the cached content.
+ */
+public class InlineAssetCache {
+    private final Map<String, Optional<String>> encodedAssets = new ConcurrentHashMap<>();
+
+    /**
+     * @return the inline part for the image, or null when the image is not on the classpath
+     */
+    public MimeBodyPart inlinePart(String contentId, String path, String mimeType) throws MessagingException {
+        Optional<String> encodedAsset = encodedAssets.computeIfAbsent(path, InlineAssetCache::encode);
+
+        if (encodedAsset.isEmpty()) {
+            return null;
+        }
+
+        MimeBodyPart bodyPart = new PreencodedMimeBodyPart("base64");
+        bodyPart.setContent(encodedAsset.get(), mimeType);
+        bodyPart.setDisposition(Part.INLINE);
+        bodyPart.setContentID("<" + contentId + ">");
+
+        return bodyPart;
+    }
+
+    public void clear() {
+        encodedAssets.clear();
+    }
+
+    private static Optional<String> encode(String path) {
+        ClassPathResource resource = new ClassPathResource(path);
+
+        if (!resource.exists()) {
+            return Optional.empty();
+        }
+
+        try (InputStream inputStream = resource.getInputStream()) {
+            return Optional.of(Base64.getMimeEncoder().encodeToString(inputStream.readAllBytes()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.tericcabrel.authorization.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Durations of the phases of a request, in the order they were recorded. The phases can run on different threads.
+ */
+public class PhaseTimings {
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final Map<String, Long> durations = new LinkedHashMap<>();
+
+    public synchronized void record(String phase, long durationNanos) {
+        durations.put(phase, durationNanos);
+    }
+
+    public synchronized Map<String, Long> getDurations() {
+        return new LinkedHashMap<>(durations);
+    }
+
+    /**
+     * Formats the durations as a Server-Timing header value, for instance {@code lookup;dur=1.25, verify;dur=240.50}.
+     */
+    public synchronized String toServerTiming() {
+        return durations.entrySet().stream()
+            .map(entry -> String.format(Locale.ROOT, "%s;dur=%.2f", entry.getKey(), entry.getValue() / 1_000_000.0))
+            .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,149 @@
+package com.tericcabrel.authorization.utils;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import java.util.Properties;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+
+/**
+ * Keeps connected and authenticated SMTP transports, so the STARTTLS and AUTH exchanges are paid once per connection
+ * instead of once per message. A connection is closed after a number of messages, since most servers limit it, or
+ * when it stayed idle long enough for the server to drop it.
+ */
+public class SmtpTransportPool implements AutoCloseable {
+    private final MailProperties mailProperties;
+
+    private final Session session;
+
+    private final BlockingDeque<PooledTransport> idleTransports = new LinkedBlockingDeque<>();
+
+    private final Semaphore permits;
+
+    private final int maxMessagesPerConnection;
+
+    private final long maxIdleMillis;
+
+    private final long borrowTimeoutMillis;
+
+    public SmtpTransportPool(
+        MailProperties mailProperties,
+        int maxConnections,
+        int maxMessagesPerConnection,
+        long maxIdleMillis,
+        long borrowTimeoutMillis
+    ) {
+        Properties properties = new Properties();
+        properties.putAll(mailProperties.getProperties());
+
+        this.mailProperties = mailProperties;
+        this.session = Session.getInstance(properties);
+        this.permits = new Semaphore(maxConnections);
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.maxIdleMillis = maxIdleMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public PooledTransport borrow() throws MessagingException {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("No SMTP connection available after " + borrowTimeoutMillis + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new MessagingException("Interrupted while waiting for an SMTP connection", e);
+        }
+
+        try {
+            PooledTransport pooledTransport;
+
+            while ((pooledTransport = idleTransports.pollFirst()) != null) {
+                if (pooledTransport.isUsable(maxIdleMillis)) {
+                    return pooledTransport;
+                }
+
+                pooledTransport.closeQuietly();
+            }
+
+            return connect();
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+
+            throw e;
+        }
+    }
+
+    /**
+     * Gives the transport back to the pool, or closes it when it failed or reached the message limit.
+     */
+    public void release(PooledTransport pooledTransport, boolean broken) {
+        try {
+            if (broken || pooledTransport.sentCount >= maxMessagesPerConnection) {
+                pooledTransport.closeQuietly();
+            } else {
+                pooledTransport.lastUsedAt = System.currentTimeMillis();
+                idleTransports.offerFirst(pooledTransport);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        PooledTransport pooledTransport;
+
+        while ((pooledTransport = idleTransports.pollFirst()) != null) {
+            pooledTransport.closeQuietly();
+        }
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        Transport transport = session.getTransport(mailProperties.getProtocol());
+        int port = mailProperties.getPort() != null ? mailProperties.getPort() : -1;
+
+        transport.connect(mailProperties.getHost(), port, mailProperties.getUsername(), mailProperties.getPassword());
+
+        return new PooledTransport(transport);
+    }
+
+    public static final class PooledTransport {
+        private final Transport transport;
+
+        private int sentCount;
+
+        private long lastUsedAt = System.currentTimeMillis();
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        public void send(Message message) throws MessagingException {
+            message.saveChanges();
+            transport.sendMessage(message, message.getAllRecipients());
+            sentCount++;
+        }
+
+        private boolean isUsable(long maxIdleMillis) {
+            return System.currentTimeMillis() - lastUsedAt < maxIdleMillis && transport.isConnected();
+        }
+
+        private void closeQuietly() {
+            try {
+                transport.close();
+            } catch (MessagingException ignored) {
+                // The connection is dropped anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.tericcabrel.authorization.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory token buckets split into stripes, each guarded by its own lock, so concurrent requests for different keys
+ * rarely wait on each other. Each stripe keeps a bounded number of keys and evicts the least recently used one, which
+ * is at worst a bucket refilled earlier than expected.
+ */
+public class StripedTokenBuckets {
+    private final Stripe[] stripes;
+
+    private final int mask;
+
+    public StripedTokenBuckets(int stripeCount, int maxKeysPerStripe) {
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+
+        this.stripes = new Stripe[size];
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe(maxKeysPerStripe);
+        }
+    }
+
+    /**
+     * Takes one token from the bucket of the key.
+     *
+     * @param key the bucket key
+     * @param capacity the maximum number of tokens in the bucket
+     * @param refillPeriodNanos the time needed to refill the bucket completely
+     * @return 0 when a token was taken, otherwise the number of nanoseconds before the next token is available
+     */
+    public long tryConsume(String key, long capacity, long refillPeriodNanos) {
+        int hash = key.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & mask];
+        long now = System.nanoTime();
+        double tokensPerNano = (double) capacity / refillPeriodNanos;
+
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(key);
+
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                stripe.buckets.put(key, bucket);
+            } else {
+                bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.refilledAt) * tokensPerNano);
+                bucket.refilledAt = now;
+            }
+
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+
+                return 0;
+            }
+
+            return (long) Math.ceil((1 - bucket.tokens) / tokensPerNano);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private static final class Bucket {
+        private double tokens;
+
+        private long refilledAt;
+
+        private Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Map<String, Bucket> buckets;
+
+        private Stripe(int maxKeys) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > maxKeys;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.tericcabrel.authorization.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Streams the JFR events emitted when a virtual thread blocks while pinned to its carrier, mostly inside a
+ * {@code synchronized} block, for longer than the threshold. Each event is timed by the site which pinned the thread:
+ * the first frame of the application when there is one, otherwise the first frame outside the JDK, so the pinning in
+ * the dependencies shows up too. The stack of a site is logged the first time it is seen.
+ */
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final String APPLICATION_PACKAGE = "com.tericcabrel.";
+
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private final RecordingStream recordingStream = new RecordingStream();
+
+    private final MeterRegistry meterRegistry;
+
+    private final Set<String> loggedSites = ConcurrentHashMap.newKeySet();
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry, Duration threshold) {
+        this.meterRegistry = meterRegistry;
+
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+    }
+
+    public void start() {
+        recordingStream.startAsync();
+    }
+
+    @Override
+    public void close() {
+        recordingStream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+        RecordedFrame site = siteOf(frames);
+        String siteName = site != null ? site.getMethod().getType().getName() + "." + site.getMethod().getName() : "unknown";
+        boolean application = siteName.startsWith(APPLICATION_PACKAGE);
+
+        Timer.builder("auth.threads.virtual.pinned")
+            .description("Time virtual threads spent blocked while pinned to their carrier")
+            .tag("site", siteName)
+            .tag("source", application ? "application" : "dependency")
+            .register(meterRegistry)
+            .record(event.getDuration());
+
+        if (loggedSites.add(siteName)) {
+            String stack = frames.stream()
+                .limit(LOGGED_FRAMES)
+                .map(frame -> "\n\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                .collect(Collectors.joining());
+
+            logger.warn("A virtual thread was pinned for " + event.getDuration().toMillis() + "ms in " + siteName + stack);
+        }
+    }
+
+    private static RecordedFrame siteOf(List<RecordedFrame> frames) {
+        RecordedFrame firstOutsideJdk = null;
+
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+
+            if (type.startsWith(APPLICATION_PACKAGE)) {
+                return frame;
+            }
+            if (firstOutsideJdk == null && !type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                firstOutsideJdk = frame;
+            }
+        }
+
+        return firstOutsideJdk;
+    }
+}
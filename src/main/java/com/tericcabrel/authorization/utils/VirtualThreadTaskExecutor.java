@@ -0,0 +1,65 @@
+package com.tericcabrel.authorization.utils;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+/**
+ * Runs each task on its own virtual thread, with a bound on the tasks in flight which replaces the pool and its queue.
+ * When the bound is reached, the task runs on the calling thread or is rejected, like the pool it replaces.
+ * <p>
+ * The bound is a semaphore checked without waiting: the throttle of {@code SimpleAsyncTaskExecutor} waits on a monitor,
+ * which would pin a calling virtual thread.
+ */
+public class VirtualThreadTaskExecutor implements TaskExecutor, AutoCloseable {
+    private final ThreadFactory threadFactory;
+
+    private final Semaphore permits;
+
+    private final int maxConcurrency;
+
+    private final boolean callerRunsWhenFull;
+
+    private final long awaitTerminationMillis;
+
+    public VirtualThreadTaskExecutor(String namePrefix, int maxConcurrency, boolean callerRunsWhenFull, long awaitTerminationMillis) {
+        this.threadFactory = Thread.ofVirtual().name(namePrefix, 0).factory();
+        this.permits = new Semaphore(maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+        this.callerRunsWhenFull = callerRunsWhenFull;
+        this.awaitTerminationMillis = awaitTerminationMillis;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!permits.tryAcquire()) {
+            if (!callerRunsWhenFull) {
+                throw new TaskRejectedException(maxConcurrency + " tasks are already running");
+            }
+
+            task.run();
+
+            return;
+        }
+
+        threadFactory.newThread(() -> {
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        }).start();
+    }
+
+    /**
+     * Virtual threads don't keep the JVM alive, so the running tasks are given some time to complete.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        if (permits.tryAcquire(maxConcurrency, awaitTerminationMillis, TimeUnit.MILLISECONDS)) {
+            permits.release(maxConcurrency);
+        }
+    }
+}
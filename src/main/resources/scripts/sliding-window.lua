@@ -0,0 +1,18 @@
+-- Sliding window rate limit stored in a sorted set scored by the request time.
+-- KEYS[1]: window key, ARGV[1]: now in ms, ARGV[2]: window in ms, ARGV[3]: limit, ARGV[4]: unique member
+-- Returns 0 when the request is allowed, otherwise the number of ms before a slot is free.
+local now = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)
+
+if redis.call('ZCARD', KEYS[1]) < tonumber(ARGV[3]) then
+  redis.call('ZADD', KEYS[1], now, ARGV[4])
+  redis.call('PEXPIRE', KEYS[1], window)
+
+  return 0
+end
+
+local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+
+return math.max(1, tonumber(oldest[2]) + window - now)
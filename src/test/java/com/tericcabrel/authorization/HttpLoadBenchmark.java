@@ -0,0 +1,129 @@
+package com.tericcabrel.authorization;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load against a running instance: each client sends a request as soon as the previous one completes, for
+ * a fixed duration after a warm-up. Prints the throughput and the latency percentiles, so two modes of the
+ * application, or two versions of an endpoint, can be compared at the same concurrency. The request is a GET with the
+ * token, or a POST of the JSON body when one is given; the token is {@code -} when the endpoint is public. With
+ * {@code -Dcores=<n>}, the cores the application was limited to, the throughput per core is printed too.
+ * <p>
+ * Only depends on the JDK, so it runs from the test classes while the application runs beside it:
+ * {@code java -cp target/test-classes com.tericcabrel.authorization.HttpLoadBenchmark
+ * http://localhost:8403/users/me <token> 1000 30 [body]}
+ */
+public class HttpLoadBenchmark {
+  private static final Duration WARM_UP = Duration.ofSeconds(10);
+
+  public static void main(String[] args) throws Exception {
+    URI uri = URI.create(args[0]);
+    String token = args[1];
+    int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+    Duration duration = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 30);
+    String body = args.length > 4 ? args[4] : null;
+    int cores = Integer.getInteger("cores", 0);
+
+    HttpClient client = HttpClient.newBuilder()
+        .executor(Executors.newVirtualThreadPerTaskExecutor())
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30));
+
+    if (!"-".equals(token)) {
+      requestBuilder.header("Authorization", "Bearer " + token);
+    }
+    if (body != null) {
+      requestBuilder.header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    HttpRequest request = requestBuilder.build();
+
+    run(client, request, concurrency, WARM_UP);
+    Result result = run(client, request, concurrency, duration);
+
+    long[] latencies = result.latencies();
+    Arrays.sort(latencies);
+
+    double throughput = latencies.length / (double) duration.toSeconds();
+
+    System.out.printf(
+        "concurrency %d   requests %d   errors %d   throughput %.0f req/s%s   p50 %.1f ms   p99 %.1f ms   max %.1f ms%n",
+        concurrency,
+        latencies.length,
+        result.errors(),
+        throughput,
+        cores > 0 ? String.format(" (%.0f req/s per core)", throughput / cores) : "",
+        percentile(latencies, 0.50),
+        percentile(latencies, 0.99),
+        latencies.length > 0 ? latencies[latencies.length - 1] / 1e6 : 0
+    );
+  }
+
+  private static Result run(HttpClient client, HttpRequest request, int concurrency, Duration duration) throws Exception {
+    long deadline = System.nanoTime() + duration.toNanos();
+    AtomicLong errors = new AtomicLong();
+    List<Future<long[]>> clients = new ArrayList<>();
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < concurrency; i++) {
+        clients.add(executor.submit(() -> {
+          long[] latencies = new long[1024];
+          int count = 0;
+
+          while (System.nanoTime() < deadline) {
+            long startedAt = System.nanoTime();
+
+            try {
+              HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+
+              if (response.statusCode() != 200) {
+                errors.incrementAndGet();
+                continue;
+              }
+            } catch (Exception e) {
+              errors.incrementAndGet();
+              continue;
+            }
+
+            if (count == latencies.length) {
+              latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - startedAt;
+          }
+
+          return Arrays.copyOf(latencies, count);
+        }));
+      }
+    }
+
+    List<long[]> all = new ArrayList<>();
+    for (Future<long[]> future : clients) {
+      all.add(future.get());
+    }
+
+    return new Result(all.stream().flatMapToLong(Arrays::stream).toArray(), errors.get());
+  }
+
+  private static double percentile(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+
+    return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+  }
+
+  private record Result(long[] latencies, long errors) {
+  }
+}
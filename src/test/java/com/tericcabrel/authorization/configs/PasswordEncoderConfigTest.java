@@ -0,0 +1,44 @@
+package com.tericcabrel.authorization.configs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+public class PasswordEncoderConfigTest {
+  private static final String PASSWORD = "password";
+
+  private PasswordEncoder passwordEncoder(String algorithm) {
+    MockEnvironment environment = new MockEnvironment()
+        .withProperty("app.password.algorithm", algorithm)
+        .withProperty("app.password.calibration-enabled", "false");
+
+    return new PasswordEncoderConfig(environment).passwordEncoder();
+  }
+
+  @DisplayName("Password encoder - Legacy bcrypt hash is verified and upgraded")
+  @Test
+  void testLegacyHashIsVerifiedAndUpgraded() {
+    PasswordEncoder passwordEncoder = passwordEncoder("bcrypt");
+    String legacyHash = new BCryptPasswordEncoder().encode(PASSWORD);
+
+    assertThat(passwordEncoder.matches(PASSWORD, legacyHash)).isTrue();
+    assertThat(passwordEncoder.upgradeEncoding(legacyHash)).isTrue();
+    assertThat(passwordEncoder.upgradeEncoding(passwordEncoder.encode(PASSWORD))).isFalse();
+  }
+
+  @DisplayName("Password encoder - Hash of another algorithm is verified and upgraded")
+  @Test
+  void testHashOfAnotherAlgorithmIsUpgraded() {
+    String bcryptHash = passwordEncoder("bcrypt").encode(PASSWORD);
+    PasswordEncoder passwordEncoder = passwordEncoder("pbkdf2");
+
+    assertThat(bcryptHash).startsWith("{bcrypt}");
+    assertThat(passwordEncoder.matches(PASSWORD, bcryptHash)).isTrue();
+    assertThat(passwordEncoder.upgradeEncoding(bcryptHash)).isTrue();
+    assertThat(passwordEncoder.encode(PASSWORD)).startsWith("{pbkdf2-310000}");
+  }
+}
@@ -0,0 +1,156 @@
+package com.tericcabrel.authorization.constraints.validators;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.tericcabrel.authorization.constraints.Exists;
+import com.tericcabrel.authorization.constraints.FieldMatch;
+import com.tericcabrel.authorization.models.dtos.CreateUserDto;
+import com.tericcabrel.authorization.models.dtos.ForgotPasswordDto;
+import com.tericcabrel.authorization.repositories.UserRepository;
+import com.tericcabrel.authorization.utils.Helpers;
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Per-validation cost of the constraint validators, the implementations before the accessors were cached against the
+ * current ones. The database is left out: the repository of the previous validator is a proxy returning no user, and
+ * the exists query of the current one returns false without being sent, so only the work done around it is measured.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.tericcabrel.authorization.constraints.validators.ConstraintValidatorBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConstraintValidatorBenchmark {
+  private static final String PASSWORD_PROPERTY = "password";
+  private static final String CONFIRM_PASSWORD_PROPERTY = "confirmPassword";
+  private static final String EMAIL_PROPERTY = "email";
+  private static final String REPOSITORY = "UserRepository";
+
+  private CreateUserDto createUserDto;
+
+  private ForgotPasswordDto forgotPasswordDto;
+
+  private FieldMatchValidator fieldMatchValidator;
+
+  private GenericApplicationContext applicationContext;
+
+  private MongoClient mongoClient;
+
+  private ExistsValidator existsValidator;
+
+  @Setup
+  public void setUp() {
+    createUserDto = new CreateUserDto()
+        .setEmail("john.doe@email.com")
+        .setPassword("secret123")
+        .setConfirmPassword("secret123");
+
+    forgotPasswordDto = new ForgotPasswordDto().setEmail("john.doe@email.com");
+
+    fieldMatchValidator = new FieldMatchValidator();
+    fieldMatchValidator.initialize(CreateUserDto.class.getAnnotation(FieldMatch.List.class).value()[0]);
+
+    UserRepository userRepository = (UserRepository) Proxy.newProxyInstance(
+        UserRepository.class.getClassLoader(),
+        new Class<?>[] { UserRepository.class },
+        (proxy, method, args) -> Optional.empty()
+    );
+
+    applicationContext = new GenericApplicationContext();
+    applicationContext.registerBean(UserRepository.class, () -> userRepository);
+    applicationContext.refresh();
+
+    // The client connects on the first command, which is never sent
+    mongoClient = MongoClients.create("mongodb://localhost:27017");
+    MongoTemplate mongoTemplate = new MongoTemplate(mongoClient, "benchmark") {
+      @Override
+      public boolean exists(Query query, Class<?> entityClass) {
+        return false;
+      }
+    };
+
+    existsValidator = new ExistsValidator(applicationContext, mongoTemplate);
+    existsValidator.initialize(ForgotPasswordDto.class.getAnnotation(Exists.List.class).value()[0]);
+  }
+
+  @TearDown
+  public void tearDown() {
+    applicationContext.close();
+    mongoClient.close();
+  }
+
+  /**
+   * The previous validator compared the property descriptors rather than the values, which is kept as is.
+   */
+  @Benchmark
+  public boolean fieldMatchPrevious() {
+    Object first = BeanUtils.getPropertyDescriptor(createUserDto.getClass(), PASSWORD_PROPERTY);
+    Object second = BeanUtils.getPropertyDescriptor(createUserDto.getClass(), CONFIRM_PASSWORD_PROPERTY);
+
+    return first == null && second == null || (first != null && first.equals(second));
+  }
+
+  @Benchmark
+  public boolean fieldMatchCurrent() {
+    return fieldMatchValidator.isValid(createUserDto, null);
+  }
+
+  @Benchmark
+  public boolean existsPrevious() throws Exception {
+    return previousExists(applicationContext, forgotPasswordDto);
+  }
+
+  @Benchmark
+  public boolean existsCurrent() {
+    return existsValidator.isValid(forgotPasswordDto, null);
+  }
+
+  /**
+   * {@code ExistsValidator.isValid} before the accessors were cached, without the exception handling.
+   */
+  private static boolean previousExists(ApplicationContext applicationContext, Object value) throws Exception {
+    String fullRepositoryName = "com.tericcabrel.authorization.repositories." + REPOSITORY;
+    Class<?> repositoryClass = Class.forName(fullRepositoryName);
+    Object repositoryInstance = applicationContext.getBean(repositoryClass);
+
+    Object propertyValue = BeanUtils.getPropertyDescriptor(value.getClass(), EMAIL_PROPERTY).getReadMethod().invoke(value);
+
+    if (propertyValue == null) {
+      return false;
+    }
+
+    String methodName = "findBy" + Helpers.capitalize(EMAIL_PROPERTY);
+    Object result = repositoryClass.getMethod(methodName, String.class).invoke(repositoryInstance, propertyValue.toString());
+
+    return result != null;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ConstraintValidatorBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,29 @@
+package com.tericcabrel.authorization.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class OpenApiControllerTest {
+
+  @DisplayName("OpenAPI spec - Serve the gzip version when the client accepts it")
+  @Test
+  void testAcceptsGzip() {
+    assertThat(OpenApiController.acceptsGzip("gzip, deflate, br")).isTrue();
+    assertThat(OpenApiController.acceptsGzip("br;q=1.0, gzip;q=0.8")).isTrue();
+    assertThat(OpenApiController.acceptsGzip("*")).isTrue();
+    assertThat(OpenApiController.acceptsGzip("identity, *;q=0.5")).isTrue();
+  }
+
+  @DisplayName("OpenAPI spec - Serve the plain version when gzip is refused or not listed")
+  @Test
+  void testRefusesGzip() {
+    assertThat(OpenApiController.acceptsGzip(null)).isFalse();
+    assertThat(OpenApiController.acceptsGzip("identity")).isFalse();
+    assertThat(OpenApiController.acceptsGzip("gzip;q=0")).isFalse();
+    assertThat(OpenApiController.acceptsGzip("gzip; q=0.0, br")).isFalse();
+    assertThat(OpenApiController.acceptsGzip("*, gzip;q=0")).isFalse();
+    assertThat(OpenApiController.acceptsGzip("*;q=0")).isFalse();
+  }
+}
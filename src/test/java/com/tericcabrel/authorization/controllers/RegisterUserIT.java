@@ -2,7 +2,7 @@ package com.tericcabrel.authorization.controllers;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -15,10 +15,10 @@ import com.tericcabrel.authorization.models.response.InvalidDataResponse;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import javax.mail.Address;
-import javax.mail.MessagingException;
-import javax.mail.Session;
-import javax.mail.internet.MimeMessage;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -30,7 +30,13 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.TestPropertySource;
 
+@TestPropertySource(properties = {
+    "app.mongodb.transactions.enabled=true",
+    "app.mail.outbox.poll-interval-ms=100",
+    "app.mail.transport.pooled=false"
+})
 public class RegisterUserIT extends BaseIT {
   private static final String ENDPOINT = "/auth/register";
 
@@ -98,7 +104,8 @@ public class RegisterUserIT extends BaseIT {
     // THEN
     assertThat(registerResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
 
-    verify(mailSender, times(1)).send(mimeMessageCaptor.capture());
+    // The email is sent by the outbox dispatcher after the response
+    verify(mailSender, timeout(10000).times(1)).send(mimeMessageCaptor.capture());
 
     User user = Objects.requireNonNull(registerResponse.getBody());
 
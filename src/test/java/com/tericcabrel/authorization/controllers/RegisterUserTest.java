@@ -9,6 +9,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.tericcabrel.authorization.exceptions.GlobalExceptionHandler;
+import com.tericcabrel.authorization.services.interfaces.EmailFilterService;
 import com.tericcabrel.authorization.services.interfaces.RoleService;
 import com.tericcabrel.authorization.services.interfaces.UserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,10 +18,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
 @ExtendWith(MockitoExtension.class)
 public class RegisterUserTest {
@@ -31,6 +35,12 @@ public class RegisterUserTest {
   @Mock
   RoleService roleService;
 
+  @Mock
+  MongoTemplate mongoTemplate;
+
+  @Mock
+  EmailFilterService emailFilterService;
+
   @InjectMocks
   AuthController authController;
 
@@ -38,9 +48,20 @@ public class RegisterUserTest {
 
   @BeforeEach
   void setUp() {
+    // The validators with dependencies, like the one of @IsUnique, are created from this context
+    GenericApplicationContext applicationContext = new GenericApplicationContext();
+    applicationContext.registerBean(MongoTemplate.class, () -> mongoTemplate);
+    applicationContext.registerBean(EmailFilterService.class, () -> emailFilterService);
+    applicationContext.refresh();
+
+    LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+    validator.setApplicationContext(applicationContext);
+    validator.afterPropertiesSet();
+
     mockMvc = MockMvcBuilders
         .standaloneSetup(authController)
         .setControllerAdvice(new GlobalExceptionHandler())
+        .setValidator(validator)
         .build();
   }
 
@@ -0,0 +1,114 @@
+package com.tericcabrel.authorization.services;
+
+import com.tericcabrel.authorization.utils.InlineAssetCache;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeBodyPart;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+/**
+ * Time to render an email template with the parsed templates cached against parsed on every render, as in dev mode,
+ * and time to build the inline logo with its encoding cached against read and encoded for every message. The resolver
+ * is set up like the one of {@code TemplateEngineConfig}.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.tericcabrel.authorization.services.MailTemplateBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MailTemplateBenchmark {
+  private static final String SPRING_LOGO_IMAGE_PATH = "templates/html/images/spring.png";
+
+  /**
+   * Only the rendering depends on the template.
+   */
+  @State(Scope.Benchmark)
+  public static class Template {
+    @Param({"html/registration", "html/password-reset"})
+    public String name;
+  }
+
+  private SpringTemplateEngine cachedTemplateEngine;
+
+  private SpringTemplateEngine uncachedTemplateEngine;
+
+  private Context context;
+
+  private final InlineAssetCache inlineAssetCache = new InlineAssetCache();
+
+  @Setup
+  public void setUp() {
+    cachedTemplateEngine = templateEngine(true);
+    uncachedTemplateEngine = templateEngine(false);
+
+    context = new Context(Locale.ENGLISH);
+    context.setVariable("email", "john.doe@email.com");
+    context.setVariable("name", "John Doe");
+    context.setVariable("url", "http://localhost:8403/auth/confirm-account?token=b7a2d1c4");
+    context.setVariable("springLogo", SPRING_LOGO_IMAGE_PATH);
+  }
+
+  @Benchmark
+  public String renderCached(Template template) {
+    return cachedTemplateEngine.process(template.name, context);
+  }
+
+  @Benchmark
+  public String renderUncached(Template template) {
+    return uncachedTemplateEngine.process(template.name, context);
+  }
+
+  @Benchmark
+  public MimeBodyPart inlineLogoCached() throws MessagingException {
+    return inlineAssetCache.inlinePart("springLogo", SPRING_LOGO_IMAGE_PATH, "image/png");
+  }
+
+  @Benchmark
+  public MimeBodyPart inlineLogoUncached() throws MessagingException {
+    inlineAssetCache.clear();
+
+    return inlineAssetCache.inlinePart("springLogo", SPRING_LOGO_IMAGE_PATH, "image/png");
+  }
+
+  private static SpringTemplateEngine templateEngine(boolean cacheable) {
+    ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+    templateResolver.setResolvablePatterns(Collections.singleton("html/*"));
+    templateResolver.setPrefix("/templates/");
+    templateResolver.setSuffix(".html");
+    templateResolver.setTemplateMode(TemplateMode.HTML);
+    templateResolver.setCharacterEncoding("UTF-8");
+    templateResolver.setCacheable(cacheable);
+
+    SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+    templateEngine.setTemplateResolver(templateResolver);
+
+    return templateEngine;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(MailTemplateBenchmark.class.getSimpleName()).build()).run();
+  }
+}
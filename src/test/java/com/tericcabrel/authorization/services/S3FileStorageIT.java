@@ -0,0 +1,117 @@
+package com.tericcabrel.authorization.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+@Testcontainers
+public class S3FileStorageIT {
+  private static final String BUCKET = "avatars";
+
+  @Container
+  static final MinIOContainer MINIO_CONTAINER = new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z");
+
+  private static S3AsyncClient client;
+
+  private static S3Presigner presigner;
+
+  private static S3FileStorage fileStorage;
+
+  @TempDir
+  Path tempDir;
+
+  @BeforeAll
+  static void setUp() {
+    StaticCredentialsProvider credentials = StaticCredentialsProvider.create(
+        AwsBasicCredentials.create(MINIO_CONTAINER.getUserName(), MINIO_CONTAINER.getPassword())
+    );
+    URI endpoint = URI.create(MINIO_CONTAINER.getS3URL());
+
+    client = S3AsyncClient.builder()
+        .region(Region.US_EAST_1)
+        .credentialsProvider(credentials)
+        .endpointOverride(endpoint)
+        .forcePathStyle(true)
+        .multipartEnabled(true)
+        .multipartConfiguration(MultipartConfiguration.builder()
+            .thresholdInBytes(5L * 1024 * 1024)
+            .minimumPartSizeInBytes(5L * 1024 * 1024)
+            .build())
+        .build();
+    presigner = S3Presigner.builder()
+        .region(Region.US_EAST_1)
+        .credentialsProvider(credentials)
+        .endpointOverride(endpoint)
+        .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+        .build();
+
+    client.createBucket(request -> request.bucket(BUCKET)).join();
+
+    fileStorage = new S3FileStorage(client, presigner, BUCKET, Duration.ofMinutes(5), 30_000);
+  }
+
+  @AfterAll
+  static void tearDown() {
+    presigner.close();
+    client.close();
+  }
+
+  @DisplayName("S3 storage - Upload in parts, download with a presigned URL and delete")
+  @Test
+  void testPutDownloadAndDelete() throws Exception {
+    // GIVEN a file above the multipart threshold
+    byte[] content = new byte[12 * 1024 * 1024];
+    new Random(42).nextBytes(content);
+
+    Path source = Files.write(tempDir.resolve("upload.tmp"), content);
+    String key = "ab/cd/abcd.png";
+
+    // WHEN
+    fileStorage.put(key, source, "image/png");
+
+    // THEN
+    assertThat(fileStorage.exists(key)).isTrue();
+    assertThat(source).doesNotExist();
+
+    HttpResponse<byte[]> response = HttpClient.newHttpClient().send(
+        HttpRequest.newBuilder(fileStorage.urlOf(key)).GET().build(),
+        HttpResponse.BodyHandlers.ofByteArray()
+    );
+
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(response.headers().firstValue("Content-Type")).hasValue("image/png");
+    assertThat(response.body()).isEqualTo(content);
+
+    fileStorage.delete(key);
+
+    assertThat(fileStorage.exists(key)).isFalse();
+  }
+
+  @DisplayName("S3 storage - Missing object")
+  @Test
+  void testMissingObject() throws Exception {
+    assertThat(fileStorage.exists("00/00/missing.jpg")).isFalse();
+  }
+}
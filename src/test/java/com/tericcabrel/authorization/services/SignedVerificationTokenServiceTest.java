@@ -0,0 +1,104 @@
+package com.tericcabrel.authorization.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.tericcabrel.authorization.exceptions.ResourceNotFoundException;
+import com.tericcabrel.authorization.exceptions.TokenExpiredException;
+import com.tericcabrel.authorization.models.entities.User;
+import com.tericcabrel.authorization.models.enums.MailType;
+import com.tericcabrel.authorization.repositories.UserRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class SignedVerificationTokenServiceTest {
+  private static final String SECRET = "verification-secret";
+
+  private static final long LIFETIME_SECONDS = 3600;
+
+  private final Instant now = Instant.parse("2024-01-01T10:00:00Z");
+
+  private UserRepository userRepository;
+
+  private User user;
+
+  @BeforeEach
+  void setUp() {
+    userRepository = mock(UserRepository.class);
+    user = new User();
+    user.setId(new ObjectId().toHexString());
+    user.setPassword("$2a$10$currentPasswordHash").setConfirmed(false);
+
+    when(userRepository.findById(new ObjectId(user.getId()))).thenReturn(Optional.of(user));
+  }
+
+  @DisplayName("Signed token - Verify a token issued for the same purpose")
+  @Test
+  void testVerifyValidToken() throws Exception {
+    SignedVerificationTokenService tokenService = tokenService(now);
+
+    String token = tokenService.issue(user, MailType.REGISTRATION);
+
+    assertThat(tokenService.verify(token, MailType.REGISTRATION).getId()).isEqualTo(user.getId());
+  }
+
+  @DisplayName("Signed token - Reject a token used for another purpose or tampered with")
+  @Test
+  void testRejectWrongPurposeAndTamperedToken() {
+    SignedVerificationTokenService tokenService = tokenService(now);
+
+    String token = tokenService.issue(user, MailType.REGISTRATION);
+    char expiry = token.charAt(20);
+    String tampered = token.substring(0, 20) + (expiry == 'A' ? 'B' : 'A') + token.substring(21);
+
+    assertThatThrownBy(() -> tokenService.verify(token, MailType.PASSWORD_RESET)).isInstanceOf(ResourceNotFoundException.class);
+    assertThatThrownBy(() -> tokenService.verify(tampered, MailType.REGISTRATION)).isInstanceOf(ResourceNotFoundException.class);
+    assertThatThrownBy(() -> tokenService.verify("not a token", MailType.REGISTRATION)).isInstanceOf(ResourceNotFoundException.class);
+    assertThatThrownBy(() -> tokenService(now, "another-secret").verify(token, MailType.REGISTRATION))
+        .isInstanceOf(ResourceNotFoundException.class);
+  }
+
+  @DisplayName("Signed token - Reject an expired token")
+  @Test
+  void testRejectExpiredToken() {
+    String token = tokenService(now).issue(user, MailType.PASSWORD_RESET);
+
+    SignedVerificationTokenService later = tokenService(now.plus(Duration.ofSeconds(LIFETIME_SECONDS + 1)));
+
+    assertThatThrownBy(() -> later.verify(token, MailType.PASSWORD_RESET)).isInstanceOf(TokenExpiredException.class);
+  }
+
+  @DisplayName("Signed token - Reject a token once the user state it was bound to changed")
+  @Test
+  void testRejectTokenAlreadyUsed() throws Exception {
+    SignedVerificationTokenService tokenService = tokenService(now);
+
+    String confirmToken = tokenService.issue(user, MailType.REGISTRATION);
+    String resetToken = tokenService.issue(user, MailType.PASSWORD_RESET);
+
+    assertThat(tokenService.verify(resetToken, MailType.PASSWORD_RESET)).isSameAs(user);
+
+    user.setConfirmed(true);
+    user.setPassword("$2a$10$newPasswordHash");
+
+    assertThatThrownBy(() -> tokenService.verify(confirmToken, MailType.REGISTRATION)).isInstanceOf(ResourceNotFoundException.class);
+    assertThatThrownBy(() -> tokenService.verify(resetToken, MailType.PASSWORD_RESET)).isInstanceOf(ResourceNotFoundException.class);
+  }
+
+  private SignedVerificationTokenService tokenService(Instant instant) {
+    return tokenService(instant, SECRET);
+  }
+
+  private SignedVerificationTokenService tokenService(Instant instant, String secret) {
+    return new SignedVerificationTokenService(userRepository, secret, LIFETIME_SECONDS, Clock.fixed(instant, ZoneOffset.UTC));
+  }
+}
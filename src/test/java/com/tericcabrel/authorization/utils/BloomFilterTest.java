@@ -0,0 +1,43 @@
+package com.tericcabrel.authorization.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class BloomFilterTest {
+
+  @DisplayName("Bloom filter - Never report an added value as absent")
+  @Test
+  void testNoFalseNegative() {
+    BloomFilter bloomFilter = BloomFilter.create(10_000, 0.01);
+
+    for (int i = 0; i < 10_000; i++) {
+      bloomFilter.put("user" + i + "@email.com");
+    }
+
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(bloomFilter.mightContain("user" + i + "@email.com")).isTrue();
+    }
+  }
+
+  @DisplayName("Bloom filter - Keep the false positive rate close to the one it was sized for")
+  @Test
+  void testFalsePositiveRate() {
+    BloomFilter bloomFilter = BloomFilter.create(10_000, 0.01);
+
+    for (int i = 0; i < 10_000; i++) {
+      bloomFilter.put("user" + i + "@email.com");
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (bloomFilter.mightContain("other" + i + "@email.com")) {
+        falsePositives++;
+      }
+    }
+
+    assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    assertThat(bloomFilter.expectedFpp()).isBetween(0.005, 0.02);
+  }
+}
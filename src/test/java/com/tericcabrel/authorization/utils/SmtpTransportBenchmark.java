@@ -0,0 +1,156 @@
+package com.tericcabrel.authorization.utils;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.tericcabrel.authorization.services.JavaMailSenderTransport;
+import com.tericcabrel.authorization.services.PooledMailTransport;
+import com.tericcabrel.authorization.services.interfaces.MailTransport;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * Messages sent per second over the pooled connections against one connection per message, to a local SMTP server
+ * requiring the authentication. The network latency of a real server is left out, so the gap is a lower bound.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.tericcabrel.authorization.utils.SmtpTransportBenchmark}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SmtpTransportBenchmark {
+  private static final int BATCH_SIZE = 50;
+  private static final String USERNAME = "mailer";
+  private static final String PASSWORD = "secret";
+
+  private final DomainRateLimiter domainRateLimiter = new DomainRateLimiter(1_000_000_000L, 1000, 1000);
+
+  private GreenMail greenMail;
+
+  private SmtpTransportPool transportPool;
+
+  private MailTransport pooledTransport;
+
+  private MailTransport connectionPerMessageTransport;
+
+  private List<MimeMessage> pooledMessages;
+
+  private List<MimeMessage> connectionPerMessageMessages;
+
+  @Setup
+  public void setUp() throws MessagingException {
+    greenMail = new GreenMail(ServerSetupTest.SMTP)
+        .withConfiguration(GreenMailConfiguration.aConfig().withUser(USERNAME, PASSWORD));
+    greenMail.start();
+
+    MailProperties mailProperties = new MailProperties();
+    mailProperties.setHost(ServerSetupTest.SMTP.getBindAddress());
+    mailProperties.setPort(ServerSetupTest.SMTP.getPort());
+    mailProperties.setUsername(USERNAME);
+    mailProperties.setPassword(PASSWORD);
+    mailProperties.getProperties().put("mail.smtp.auth", "true");
+
+    transportPool = new SmtpTransportPool(mailProperties, 2, 100, 30_000, 5_000);
+    pooledTransport = new PooledMailTransport(transportPool, domainRateLimiter);
+    pooledMessages = messages(transportPool.getSession());
+
+    JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+    mailSender.setHost(mailProperties.getHost());
+    mailSender.setPort(mailProperties.getPort());
+    mailSender.setUsername(USERNAME);
+    mailSender.setPassword(PASSWORD);
+    mailSender.getJavaMailProperties().putAll(mailProperties.getProperties());
+
+    connectionPerMessageTransport = new JavaMailSenderTransport(mailSender, domainRateLimiter);
+    connectionPerMessageMessages = messages(mailSender.getSession());
+  }
+
+  /**
+   * The server keeps every message received in memory.
+   */
+  @TearDown(Level.Iteration)
+  public void purge() throws Exception {
+    greenMail.purgeEmailFromAllMailboxes();
+  }
+
+  @TearDown
+  public void tearDown() {
+    transportPool.close();
+    greenMail.stop();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public int pooled() {
+    return sendAll(pooledTransport, pooledMessages);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public int connectionPerMessage() {
+    return sendAll(connectionPerMessageTransport, connectionPerMessageMessages);
+  }
+
+  private static int sendAll(MailTransport mailTransport, List<MimeMessage> messages) {
+    AtomicInteger failures = new AtomicInteger();
+
+    mailTransport.send("example.com", messages, (message, e) -> {
+      if (e != null) {
+        failures.incrementAndGet();
+      }
+    });
+
+    if (failures.get() > 0) {
+      throw new IllegalStateException(failures.get() + " messages failed");
+    }
+
+    return messages.size();
+  }
+
+  private static List<MimeMessage> messages(Session session) throws MessagingException {
+    List<MimeMessage> messages = new ArrayList<>();
+
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      MimeMessage message = new MimeMessage(session);
+      message.setFrom(new InternetAddress("noreply@authoz.com"));
+      message.setRecipients(MimeMessage.RecipientType.TO, "user" + i + "@example.com");
+      message.setSubject("Registration Confirmation");
+      message.setText("Message " + i);
+      messages.add(message);
+    }
+
+    return messages;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(SmtpTransportBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,114 @@
+package com.tericcabrel.authorization.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.tericcabrel.authorization.services.PooledMailTransport;
+import com.tericcabrel.authorization.services.interfaces.MailTransport;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+
+/**
+ * The pooled transport against a local SMTP server. The throughput is compared with one connection per message by
+ * {@link SmtpTransportBenchmark}.
+ */
+public class SmtpTransportPoolTest {
+  private static final int MESSAGE_COUNT = 200;
+  private static final String USERNAME = "mailer";
+  private static final String PASSWORD = "secret";
+
+  @RegisterExtension
+  static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+      .withConfiguration(GreenMailConfiguration.aConfig().withUser(USERNAME, PASSWORD))
+      .withPerMethodLifecycle(true);
+
+  private final DomainRateLimiter domainRateLimiter = new DomainRateLimiter(100_000, 1000, 1000);
+
+  private MailProperties mailProperties() {
+    MailProperties mailProperties = new MailProperties();
+    mailProperties.setHost(ServerSetupTest.SMTP.getBindAddress());
+    mailProperties.setPort(ServerSetupTest.SMTP.getPort());
+    mailProperties.setUsername(USERNAME);
+    mailProperties.setPassword(PASSWORD);
+    mailProperties.getProperties().put("mail.smtp.auth", "true");
+
+    return mailProperties;
+  }
+
+  private List<MimeMessage> messages(Session session, int count, String domain) throws MessagingException {
+    List<MimeMessage> messages = new ArrayList<>();
+
+    for (int i = 0; i < count; i++) {
+      MimeMessage message = new MimeMessage(session);
+      message.setFrom(new InternetAddress("noreply@authoz.com"));
+      message.setRecipients(MimeMessage.RecipientType.TO, "user" + i + "@" + domain);
+      message.setSubject("Registration Confirmation");
+      message.setText("Message " + i);
+      messages.add(message);
+    }
+
+    return messages;
+  }
+
+  @DisplayName("SMTP pool - Send all the messages over pooled connections")
+  @Test
+  void testPooledTransportSendsAll() throws MessagingException {
+    try (SmtpTransportPool transportPool = new SmtpTransportPool(mailProperties(), 2, 50, 30_000, 5_000)) {
+      MailTransport mailTransport = new PooledMailTransport(transportPool, domainRateLimiter);
+      List<Exception> failures = new CopyOnWriteArrayList<>();
+
+      mailTransport.send("example.com", messages(transportPool.getSession(), MESSAGE_COUNT, "example.com"), (message, e) -> {
+        if (e != null) {
+          failures.add(e);
+        }
+      });
+
+      assertThat(failures).isEmpty();
+      assertThat(greenMail.getReceivedMessages()).hasSize(MESSAGE_COUNT);
+    }
+  }
+
+  @DisplayName("SMTP pool - A domain waiting for its rate limit doesn't hold the connection")
+  @Test
+  void testRateLimitedDomainReleasesConnection() throws Exception {
+    // One connection, and one message per second for each domain
+    DomainRateLimiter slowRateLimiter = new DomainRateLimiter(1, 1000, 5000);
+
+    try (SmtpTransportPool transportPool = new SmtpTransportPool(mailProperties(), 1, 50, 30_000, 5_000)) {
+      MailTransport mailTransport = new PooledMailTransport(transportPool, slowRateLimiter);
+      List<String> completedDomains = new CopyOnWriteArrayList<>();
+      List<MimeMessage> limitedMessages = messages(transportPool.getSession(), 2, "limited.com");
+      List<MimeMessage> otherMessages = messages(transportPool.getSession(), 1, "other.com");
+      CountDownLatch firstLimitedSent = new CountDownLatch(1);
+
+      Thread limited = Thread.ofPlatform().start(() -> {
+        mailTransport.send("limited.com", limitedMessages, (message, e) -> firstLimitedSent.countDown());
+        completedDomains.add("limited.com");
+      });
+
+      // The second message of the limited domain waits for the next permit, a second later. The connection is released
+      // right after the first one, and the pool hands it over as soon as it is back.
+      assertThat(firstLimitedSent.await(5, TimeUnit.SECONDS)).isTrue();
+      mailTransport.send("other.com", otherMessages, (message, e) -> { });
+      completedDomains.add("other.com");
+
+      limited.join();
+
+      assertThat(completedDomains).containsExactly("other.com", "limited.com");
+      assertThat(greenMail.getReceivedMessages()).hasSize(3);
+    }
+  }
+}
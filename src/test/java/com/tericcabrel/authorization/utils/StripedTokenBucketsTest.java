@@ -0,0 +1,34 @@
+package com.tericcabrel.authorization.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class StripedTokenBucketsTest {
+  private static final long PERIOD = TimeUnit.MINUTES.toNanos(1);
+
+  @DisplayName("Token buckets - Reject once the capacity is consumed")
+  @Test
+  void testRejectWhenCapacityIsConsumed() {
+    StripedTokenBuckets tokenBuckets = new StripedTokenBuckets(4, 16);
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(tokenBuckets.tryConsume("login:user@email.com", 3, PERIOD)).isZero();
+    }
+
+    assertThat(tokenBuckets.tryConsume("login:user@email.com", 3, PERIOD)).isPositive().isLessThanOrEqualTo(PERIOD / 3);
+    assertThat(tokenBuckets.tryConsume("login:other@email.com", 3, PERIOD)).isZero();
+  }
+
+  @DisplayName("Token buckets - Evict the least recently used key of a full stripe")
+  @Test
+  void testEvictLeastRecentlyUsedKey() {
+    StripedTokenBuckets tokenBuckets = new StripedTokenBuckets(1, 1);
+
+    assertThat(tokenBuckets.tryConsume("first", 1, PERIOD)).isZero();
+    assertThat(tokenBuckets.tryConsume("second", 1, PERIOD)).isZero();
+    assertThat(tokenBuckets.tryConsume("first", 1, PERIOD)).isZero();
+  }
+}
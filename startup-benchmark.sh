@@ -0,0 +1,103 @@
+#!/bin/bash
+#
+# Measures the time from the start of the JVM to the first successful login, for the plain jar, the AOT build and the
+# AOT build with a CDS archive. Mongo and Redis must be running and the super admin seeded.
+#
+# Usage: ./startup-benchmark.sh [runs]
+#   SKIP_BUILD=1      reuse the jar built by a previous run
+#   BASE_URL          default http://localhost:8403
+#   LOGIN_EMAIL       default sadmin@authoz.com
+#   LOGIN_PASSWORD    default secret
+#   JAVA_OPTS         added to every run, e.g. the memory limits of the pods
+
+set -euo pipefail
+
+RUNS=${1:-5}
+BASE_URL=${BASE_URL:-http://localhost:8403}
+LOGIN_EMAIL=${LOGIN_EMAIL:-sadmin@authoz.com}
+LOGIN_PASSWORD=${LOGIN_PASSWORD:-secret}
+JAVA_OPTS=${JAVA_OPTS:-}
+TIMEOUT_SECONDS=120
+
+WORK_DIR=target/fast-startup
+APP_DIR=$WORK_DIR/app
+ARCHIVE=$WORK_DIR/app.jsa
+MAIN_CLASS=com.tericcabrel.authorization.AuthorizationApplication
+
+if [ -z "${SKIP_BUILD:-}" ]; then
+  mvn -B -q clean package -Pfast-startup -DskipTests
+fi
+
+JAR=$(ls target/authoz-*.jar | grep -v original | head -1)
+
+# The classes loaded from the nested jars of the fat jar can't be archived, so the jar is extracted and run with a
+# classpath which must stay identical between the training run and the measured runs
+rm -rf "$WORK_DIR"
+mkdir -p "$APP_DIR"
+(cd "$APP_DIR" && jar xf "../../../$JAR")
+
+CLASSPATH=$APP_DIR/BOOT-INF/classes
+while read -r entry; do
+  CLASSPATH=$CLASSPATH:$APP_DIR/$(echo "$entry" | sed -e 's/^- "//' -e 's/"$//')
+done < "$APP_DIR/BOOT-INF/classpath.idx"
+
+now_ms() {
+  date +%s%3N
+}
+
+login() {
+  curl -s -o /dev/null -w '%{http_code}' -X POST "$BASE_URL/auth/login" \
+    -H 'Content-Type: application/json' \
+    -d "{\"email\": \"$LOGIN_EMAIL\", \"password\": \"$LOGIN_PASSWORD\"}" || true
+}
+
+# Starts the application with the given JVM options, prints the milliseconds until the first successful login,
+# then stops it gracefully, which also writes the archive of a training run
+time_to_first_login() {
+  local started_at pid elapsed
+
+  started_at=$(now_ms)
+  # The throttling is disabled, since every run logs in with the same account
+  # shellcheck disable=SC2086
+  java $JAVA_OPTS -Dapp.throttling.enabled=false -Dapp.openapi.spec-required=false "$@" -cp "$CLASSPATH" "$MAIN_CLASS" > "$WORK_DIR/last-run.log" 2>&1 &
+  pid=$!
+
+  while [ "$(login)" != "200" ]; do
+    if ! kill -0 "$pid" 2> /dev/null || [ $(( $(now_ms) - started_at )) -gt $(( TIMEOUT_SECONDS * 1000 )) ]; then
+      kill "$pid" 2> /dev/null || true
+      echo "The application didn't accept a login, see $WORK_DIR/last-run.log" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+
+  elapsed=$(( $(now_ms) - started_at ))
+
+  kill -TERM "$pid"
+  wait "$pid" || true
+
+  echo "$elapsed"
+}
+
+# Prints the min, median and max of the runs
+benchmark() {
+  local name=$1 results=()
+  shift
+
+  for _ in $(seq "$RUNS"); do
+    results+=("$(time_to_first_login "$@")")
+  done
+
+  printf '%s\n' "${results[@]}" | sort -n | awk -v name="$name" '
+    { values[NR] = $1 }
+    END { printf "%-12s min %6d ms   median %6d ms   max %6d ms\n", name, values[1], values[int((NR + 1) / 2)], values[NR] }
+  '
+}
+
+echo "Training the CDS archive"
+time_to_first_login -Dspring.aot.enabled=true -XX:ArchiveClassesAtExit="$ARCHIVE" > /dev/null
+
+echo "Time to the first successful login over $RUNS runs"
+benchmark "default" -Dspring.aot.enabled=false
+benchmark "aot" -Dspring.aot.enabled=true
+benchmark "aot+cds" -Dspring.aot.enabled=true -XX:SharedArchiveFile="$ARCHIVE"
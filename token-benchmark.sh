@@ -0,0 +1,69 @@
+#!/bin/bash
+#
+# Compares the throughput per core of the servlet and the reactive token endpoints. The application is pinned to a
+# fixed number of cores, so the difference shows the cost of a request rather than the size of the machine. Mongo and
+# Redis must be running and the super admin seeded.
+#
+# Usage: ./token-benchmark.sh [cores] [concurrency] [seconds]
+#   SKIP_BUILD=1      reuse the jar and the test classes of a previous run
+#   BASE_URL          default http://localhost:8403
+#   LOGIN_EMAIL       default sadmin@authoz.com
+#   LOGIN_PASSWORD    default secret
+#   JAVA_OPTS         added to the run
+
+set -euo pipefail
+
+CORES=${1:-2}
+CONCURRENCY=${2:-500}
+SECONDS_PER_RUN=${3:-30}
+BASE_URL=${BASE_URL:-http://localhost:8403}
+LOGIN_EMAIL=${LOGIN_EMAIL:-sadmin@authoz.com}
+LOGIN_PASSWORD=${LOGIN_PASSWORD:-secret}
+JAVA_OPTS=${JAVA_OPTS:-}
+LOG_DIR=target/token-benchmark
+
+if [ -z "${SKIP_BUILD:-}" ]; then
+  mvn -B -q clean package -DskipTests
+  mvn -B -q test-compile
+fi
+
+JAR=$(ls target/authoz-*.jar | grep -v original | head -1)
+mkdir -p "$LOG_DIR"
+
+login() {
+  curl -s -X POST "$BASE_URL/auth/login" \
+    -H 'Content-Type: application/json' \
+    -d "{\"email\": \"$LOGIN_EMAIL\", \"password\": \"$LOGIN_PASSWORD\"}" || true
+}
+
+# shellcheck disable=SC2086
+taskset -c "0-$(( CORES - 1 ))" java $JAVA_OPTS -XX:ActiveProcessorCount="$CORES" -Dapp.throttling.enabled=false \
+  -Dapp.openapi.spec-required=false -jar "$JAR" > "$LOG_DIR/app.log" 2>&1 &
+PID=$!
+trap 'kill -TERM "$PID" 2> /dev/null || true' EXIT
+
+RESPONSE=""
+while ! echo "$RESPONSE" | grep -q '"refreshToken"'; do
+  if ! kill -0 "$PID" 2> /dev/null; then
+    echo "The application stopped, see $LOG_DIR/app.log" >&2
+    exit 1
+  fi
+  sleep 0.5
+  RESPONSE=$(login)
+done
+
+ACCESS_TOKEN=$(echo "$RESPONSE" | sed -n 's/.*"accessToken" *: *"\([^"]*\)".*/\1/p')
+REFRESH_TOKEN=$(echo "$RESPONSE" | sed -n 's/.*"refreshToken" *: *"\([^"]*\)".*/\1/p')
+
+# The load generator runs on the other cores, so it doesn't take the CPU of the application
+run() {
+  printf '%-20s ' "$1"
+  taskset -c "$CORES-$(( $(nproc) - 1 ))" java -Dcores="$CORES" -cp target/test-classes \
+    com.tericcabrel.authorization.HttpLoadBenchmark "$BASE_URL$2" - "$CONCURRENCY" "$SECONDS_PER_RUN" "$3"
+}
+
+echo "Token endpoints on $CORES cores, $CONCURRENCY clients"
+run "servlet validate" /token/validate "{\"token\": \"$ACCESS_TOKEN\"}"
+run "reactive validate" /token/reactive/validate "{\"token\": \"$ACCESS_TOKEN\"}"
+run "servlet refresh" /token/refresh "{\"token\": \"$REFRESH_TOKEN\"}"
+run "reactive refresh" /token/reactive/refresh "{\"token\": \"$REFRESH_TOKEN\"}"
@@ -0,0 +1,71 @@
+#!/bin/bash
+#
+# Compares the throughput and the latency of an authenticated endpoint between the Tomcat platform thread pool and
+# virtual threads, at the same concurrency. Mongo and Redis must be running and the super admin seeded.
+#
+# Usage: ./virtual-threads-benchmark.sh [concurrency] [seconds]
+#   SKIP_BUILD=1      reuse the jar and the test classes of a previous run
+#   BASE_URL          default http://localhost:8403
+#   ENDPOINT          default /users/me
+#   LOGIN_EMAIL       default sadmin@authoz.com
+#   LOGIN_PASSWORD    default secret
+#   JAVA_OPTS         added to both runs, e.g. -Dserver.tomcat.threads.max=200
+
+set -euo pipefail
+
+CONCURRENCY=${1:-1000}
+SECONDS_PER_RUN=${2:-30}
+BASE_URL=${BASE_URL:-http://localhost:8403}
+ENDPOINT=${ENDPOINT:-/users/me}
+LOGIN_EMAIL=${LOGIN_EMAIL:-sadmin@authoz.com}
+LOGIN_PASSWORD=${LOGIN_PASSWORD:-secret}
+JAVA_OPTS=${JAVA_OPTS:-}
+LOG_DIR=target/virtual-threads-benchmark
+
+if [ -z "${SKIP_BUILD:-}" ]; then
+  mvn -B -q clean package -DskipTests
+  mvn -B -q test-compile
+fi
+
+JAR=$(ls target/authoz-*.jar | grep -v original | head -1)
+mkdir -p "$LOG_DIR"
+
+login() {
+  curl -s -X POST "$BASE_URL/auth/login" \
+    -H 'Content-Type: application/json' \
+    -d "{\"email\": \"$LOGIN_EMAIL\", \"password\": \"$LOGIN_PASSWORD\"}" || true
+}
+
+# Runs the load against the application started with the given mode. The pinned threads are traced to the log of the
+# run, and reported by the auth.threads.virtual.pinned timer
+benchmark() {
+  local mode=$1 pid token
+
+  # shellcheck disable=SC2086
+  java $JAVA_OPTS -Dapp.throttling.enabled=false -Dapp.openapi.spec-required=false -Dapp.threads.virtual.enabled="$2" -Djdk.tracePinnedThreads=short \
+    -jar "$JAR" > "$LOG_DIR/$mode.log" 2>&1 &
+  pid=$!
+
+  token=""
+  while [ -z "$token" ]; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "The application stopped, see $LOG_DIR/$mode.log" >&2
+      exit 1
+    fi
+    sleep 0.5
+    token=$(login | sed -n 's/.*"accessToken" *: *"\([^"]*\)".*/\1/p')
+  done
+
+  printf '%-10s ' "$mode"
+  java -cp target/test-classes com.tericcabrel.authorization.HttpLoadBenchmark \
+    "$BASE_URL$ENDPOINT" "$token" "$CONCURRENCY" "$SECONDS_PER_RUN"
+
+  kill -TERM "$pid"
+  wait "$pid" || true
+}
+
+benchmark platform false
+benchmark virtual true
+
+echo "Pinned virtual threads:"
+grep -A 3 "pinned" "$LOG_DIR/virtual.log" | head -40 || echo "none"